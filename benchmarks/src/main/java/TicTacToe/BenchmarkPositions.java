@@ -0,0 +1,36 @@
+package TicTacToe;
+
+import java.util.Random;
+
+// Fixed, reproducible positions for the benchmarks: random games from the
+// empty board, stopped after 0 to 5 moves and never already finished.
+final class BenchmarkPositions {
+
+    private BenchmarkPositions() {
+    }
+
+    static Board[] boards(int count, long seed) {
+        Random rnd = new Random(seed);
+        Board[] boards = new Board[count];
+        int[] moves = new int[Board.CELLS];
+        for (int i = 0; i < count; i++) {
+            Board b;
+            do {
+                b = new Board();
+                Player p = Player.X;
+                int plies = rnd.nextInt(6);
+                for (int k = 0; k < plies && !b.isTerminal(); k++) {
+                    b.makeMove(moves[rnd.nextInt(b.generateMoves(moves))], p);
+                    p = p.opposite();
+                }
+            } while (b.isTerminal());
+            boards[i] = b;
+        }
+        return boards;
+    }
+
+    static Player toMove(Board b) {
+
+        return Integer.bitCount(b.getXMask()) == Integer.bitCount(b.getOMask()) ? Player.X : Player.O;
+    }
+}
@@ -0,0 +1,29 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+final class Benchmarks {
+
+    private static Path dataset;
+
+    private Benchmarks() {
+    }
+
+    // the bundled CSV, copied out of the benchmarks jar once per fork
+    static synchronized String datasetPath() throws IOException {
+        if (dataset == null) {
+            Path tmp = Files.createTempFile("tictactoe_dataset", ".csv");
+            tmp.toFile().deleteOnExit();
+            try (InputStream in = Benchmarks.class.getResourceAsStream("/tictactoe_dataset.csv")) {
+                if (in == null) throw new IOException("tictactoe_dataset.csv is not on the class path");
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            dataset = tmp;
+        }
+        return dataset.toString();
+    }
+}
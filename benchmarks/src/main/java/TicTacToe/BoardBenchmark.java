@@ -0,0 +1,50 @@
+package TicTacToe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private static final int POSITIONS = 64;
+
+    private Board[] boards;
+    private int next;
+
+    @Setup
+    public void setup() {
+
+        boards = BenchmarkPositions.boards(POSITIONS, 1);
+    }
+
+    private Board nextBoard() {
+        Board b = boards[next];
+        next = (next + 1) & (POSITIONS - 1);
+        return b;
+    }
+
+    @Benchmark
+    public Player getWinner() {
+
+        return nextBoard().getWinner();
+    }
+
+    @Benchmark
+    public List<Move> getLegalMoves() {
+
+        return nextBoard().getLegalMoves();
+    }
+
+    @Benchmark
+    public Board copy() {
+
+        return new Board(nextBoard());
+    }
+}
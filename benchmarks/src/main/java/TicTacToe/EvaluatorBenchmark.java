@@ -0,0 +1,46 @@
+package TicTacToe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    private static final int POSITIONS = 64;
+
+    private Board[] boards;
+    private MLModel model;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        boards = BenchmarkPositions.boards(POSITIONS, 2);
+        // evaluation cost does not depend on how well the weights are trained
+        model = new MLModel();
+        model.trainFromCsv(Benchmarks.datasetPath(), 0.7, new TrainingOptions(50, 0.3, 32, 0));
+    }
+
+    private Board nextBoard() {
+        Board b = boards[next];
+        next = (next + 1) & (POSITIONS - 1);
+        return b;
+    }
+
+    @Benchmark
+    public int classicEvaluate() {
+
+        return EvaluationClassic.evaluate(nextBoard(), Player.X);
+    }
+
+    @Benchmark
+    public double mlEvaluateBoard() {
+
+        return model.evaluateBoard(nextBoard(), Player.X);
+    }
+}
@@ -0,0 +1,63 @@
+package TicTacToe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One AI move at each difficulty depth (Easy 2, Medium 4, Hard 9) with each
+// evaluator the game can use, always from a cold transposition table, as with
+// the first move of a game. Every position has its own engine, and so its own
+// table; all of them are cleared before an iteration, outside the timing, and
+// the iteration then searches each position once. Clearing a table per
+// invocation instead would cost more than a shallow search itself.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 200)
+@Measurement(iterations = 200)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int POSITIONS = 256;
+
+    @Param({"2", "4", "9"})
+    public int depth;
+
+    // classic heuristic, ML network called at every leaf, ML precompiled into a table
+    @Param({"classic", "ml", "mlTable"})
+    public String evaluator;
+
+    private Board[] boards;
+    private SearchEngine[] engines;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        boards = BenchmarkPositions.boards(POSITIONS, 3);
+        BoardEvaluator eval = EvaluationTable.classic();
+        if (!evaluator.equals("classic")) {
+            MLModel model = new MLModel();
+            model.trainFromCsv(Benchmarks.datasetPath(), 0.7, new TrainingOptions(50, 0.3, 32, 0));
+            eval = evaluator.equals("mlTable") ? EvaluationTable.compile(model) : model;
+        }
+        engines = new SearchEngine[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) engines[i] = new SearchEngine(eval, SearchLimits.depth(depth));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTables() {
+        for (SearchEngine engine : engines) engine.newGame();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int findBestMove() {
+        int cells = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            Board b = boards[i];
+            Player ai = BenchmarkPositions.toMove(b);
+            Move best = engines[i].findBestMove(b, ai.opposite(), ai);
+            cells += best.getRow() * Board.SIZE + best.getCol();
+        }
+        return cells;
+    }
+}
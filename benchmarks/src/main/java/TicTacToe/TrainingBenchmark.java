@@ -0,0 +1,80 @@
+package TicTacToe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One training epoch over the bundled dataset: per-sample SGD as the old
+// trainer ran it, the mini-batch settings the game trains with, and the whole
+// of trainFromCsv (loading included) spread over the epochs it ran.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainingBenchmark {
+
+    private static final int CSV_EPOCHS = 20;
+
+    private double[] x;
+    private double[] y;
+    private int rows;
+    private int trainSize;
+    private double[] initial;
+    private double[] params;
+    private String csv;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        csv = Benchmarks.datasetPath();
+        Dataset data = CsvDatasetReader.load(Path.of(csv));
+        rows = data.getRows();
+        x = data.getFeatures();
+        y = data.getLabels();
+        for (int i = 0; i < rows; i++) {
+            FeatureExtractor.normalize(x, i * FeatureExtractor.COUNT);
+            y[i] = y[i] >= 0 ? 1.0 : -1.0;
+        }
+        trainSize = (int) Math.round(0.7 * rows);
+
+        Random rnd = new Random(42);
+        initial = new double[MLModel.PARAM_COUNT];
+        for (int i = 0; i < initial.length; i++) initial[i] = (rnd.nextDouble() - 0.5) * 0.5;
+        params = new double[initial.length];
+    }
+
+    // every iteration starts from the same weights, and its invocations then
+    // train on from there; an epoch costs the same whatever the weights are,
+    // and resetting per invocation would time the reset too
+    @Setup(Level.Iteration)
+    public void resetWeights() {
+
+        System.arraycopy(initial, 0, params, 0, params.length);
+    }
+
+    @Benchmark
+    public double[] epochSgd() {
+        new MLTrainer(TrainingOptions.sgd(1, 0.03)).train(params, x, y, rows, trainSize);
+        return params;
+    }
+
+    @Benchmark
+    public double[] epochMiniBatch() {
+        new MLTrainer(new TrainingOptions(1, 0.3, 32, 0)).train(params, x, y, rows, trainSize);
+        return params;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    @OperationsPerInvocation(CSV_EPOCHS)
+    public MLModel trainFromCsv() throws Exception {
+        MLModel model = new MLModel();
+        model.trainFromCsv(csv, 0.7, new TrainingOptions(CSV_EPOCHS, 0.3, 32, 0));
+        return model;
+    }
+}
@@ -1,98 +1,204 @@
 package TicTacToe;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// The process-wide search configuration of the desktop game and tools, in front
+// of SearchEngine. Every thread gets an engine built from the settings below,
+// rebuilt when they change, and all of them share one transposition table.
+// Code that hosts several games at once should build its own engines instead.
 public class AlphaBeta {
 
+    // Every setting a search is built from. Setters publish a changed copy with
+    // one volatile write, so a thread always sees an evaluator together with the
+    // salt that belongs to it; a published Config is never modified.
+    private static final class Config {
+        boolean useML;
+        MLModel mlModel;
+        // leaf scores precomputed for every position; the ML one is optional
+        EvaluationTable mlTable;
+        Tablebase tablebase;
+        NnueEvaluator nnue;
+
+        boolean moveOrdering = true;
+        boolean pvs;
+        boolean aspiration;
+        boolean statistics;
+
+        // mixed into every table key and changed with the evaluator, so a search
+        // still unwinding on another thread cannot leave entries the next one reads
+        long salt;
+
+        Config() {
+        }
+
+        Config(Config c) {
+            useML = c.useML;
+            mlModel = c.mlModel;
+            mlTable = c.mlTable;
+            tablebase = c.tablebase;
+            nnue = c.nnue;
+            moveOrdering = c.moveOrdering;
+            pvs = c.pvs;
+            aspiration = c.aspiration;
+            statistics = c.statistics;
+            salt = c.salt;
+        }
+
+        // the evaluator these settings select: ML when it is on and trained,
+        // else NNUE when one is set, else the classic heuristic
+        BoardEvaluator evaluator() {
+            if (useML) {
+                if (mlModel == null || !mlModel.isTrained()) return EvaluationTable.classic();
+                return mlTable != null ? mlTable : mlModel;
+            }
+            return nnue != null ? nnue : EvaluationTable.classic();
+        }
+    }
+
+    private static volatile Config config = new Config();
+
+    // shared by all searches; cleared whenever the evaluator changes
+    private static final TranspositionTable tt = new TranspositionTable(16);
+
+    // a thread's engine is rebuilt when the published config is no longer its own
+    private static final ThreadLocal<CachedEngine> ENGINE = new ThreadLocal<>();
+
+    private static final class CachedEngine {
+        final SearchEngine engine;
+        final Config config;
+
+        CachedEngine(SearchEngine engine, Config config) {
+            this.engine = engine;
+            this.config = config;
+        }
+    }
+
+    private AlphaBeta() {
+    }
 
-    private static boolean useML = false;
-    private static MLModel mlModel = null;
+    // setters are serialized so that none of them loses another's change
+    private static synchronized void update(Consumer<Config> change) {
+        Config next = new Config(config);
+        change.accept(next);
+        config = next;
+    }
 
-    public static void setUseML(boolean flag) {
+    private static synchronized void updateEvaluator(Consumer<Config> change) {
+        update(c -> {
+            change.accept(c);
+            c.salt += 0x9E3779B97F4A7C15L;
+        });
+        // only after the new salt is out; entries stored under the old one are never read again
+        tt.clear();
+    }
 
-        useML = flag;
+    public static synchronized void setUseML(boolean flag) {
+        if (config.useML != flag) updateEvaluator(c -> c.useML = flag);
     }
 
     public static void setMLModel(MLModel model) {
 
-        mlModel = model;
+        setMLModel(model, null);
     }
 
-    private static int evalBoard(Board board, Player humanPlayer) {
-        if (useML && mlModel != null && mlModel.isTrained()) {
-            double s = mlModel.evaluateBoard(board, humanPlayer);
-            return (int) Math.round(s * 1000.0);
-        } else {
-            return EvaluationClassic.evaluate(board, humanPlayer);
-        }
+    // table, if given, must have been compiled from model
+    public static void setMLModel(MLModel model, EvaluationTable table) {
+        updateEvaluator(c -> {
+            c.mlModel = model;
+            c.mlTable = table;
+        });
     }
 
-    public static List<String> getAllMoveEvaluations(Board board,Player humanPlayer, Player aiPlayer,int depth) {
-        List<String> out = new ArrayList<>();
-        for (Move move : board.getLegalMoves()) {
-            Board next = new Board(board);
-            next.setCell(move.getRow(), move.getCol(), aiPlayer);
+    // replaces the classic heuristic when ML is off; null goes back to it
+    public static void setNnue(NnueEvaluator net) {
+
+        updateEvaluator(c -> c.nnue = net);
+    }
 
-            int score = alphaBeta(next,humanPlayer,humanPlayer,depth - 1,Integer.MIN_VALUE, Integer.MAX_VALUE);
+    public static void setTablebase(Tablebase tb) {
 
-            out.add("AI move (" + (move.getRow() + 1) + "," + (move.getCol() + 1) +
-                    ") → Score = " + score);
-        }
-        return out;
+        update(c -> c.tablebase = tb);
     }
 
-    public static Move findBestMoveForAI(Board board,Player humanPlayer,Player aiPlayer,int depth) {
-        int bestScore = Integer.MAX_VALUE;
-        Move bestMove = null;
+    public static void setMoveOrdering(boolean flag) {
 
-        for (Move move : board.getLegalMoves()) {
-            Board next = new Board(board);
-            next.setCell(move.getRow(), move.getCol(), aiPlayer);
+        update(c -> c.moveOrdering = flag);
+    }
 
-            int score = alphaBeta(next,humanPlayer,humanPlayer, depth - 1,Integer.MIN_VALUE,Integer.MAX_VALUE);
+    // principal-variation search: null-window probes after the first move
+    public static void setPVS(boolean flag) {
 
-            move.setScore(score);
-            if (bestMove == null || score < bestScore) {
-                bestScore = score;
-                bestMove = move;
-            }
-        }
-        return bestMove;
+        update(c -> c.pvs = flag);
     }
 
-    private static int alphaBeta(Board board,Player playerToMove,Player maxPlayer,int depth,int alpha,int beta) {
+    // searchIterative only: probe each root move around its previous score first
+    public static void setAspiration(boolean flag) {
 
-        if (depth == 0 || board.isTerminal()) {
-            return evalBoard(board, maxPlayer);
-        }
+        update(c -> c.aspiration = flag);
+    }
 
-        boolean isMaxNode = (playerToMove == maxPlayer);
+    // node, cutoff and timing counters in every SearchResult; off by default
+    public static void setStatistics(boolean flag) {
 
-        if (isMaxNode) { // HUMAN TURN (MAX)
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : board.getLegalMoves()) {
-                Board next = new Board(board);
-                next.setCell(move.getRow(), move.getCol(), playerToMove);
+        update(c -> c.statistics = flag);
+    }
 
-                int eval = alphaBeta(next,playerToMove.opposite(), maxPlayer,depth - 1,alpha,beta);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) break;
-            }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : board.getLegalMoves()) {
-                Board next = new Board(board);
-                next.setCell(move.getRow(), move.getCol(), playerToMove);
-                int eval = alphaBeta(next,playerToMove.opposite(),maxPlayer,depth - 1,alpha,beta);
-
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) break;
-            }
-            return minEval;
-        }
+    public static TranspositionTable getTranspositionTable() {
+
+        return tt;
+    }
+
+    // this thread's engine for the current settings
+    static SearchEngine engine() {
+        Config c = config;
+        CachedEngine cached = ENGINE.get();
+        if (cached != null && cached.config == c) return cached.engine;
+
+        SearchOptions options = new SearchOptions(c.moveOrdering, c.pvs, c.aspiration, c.statistics,
+                SearchOptions.DEFAULT_TABLE_BITS);
+        // ML scores finished games its own way, so the tablebase would change its answers
+        Tablebase tb = c.useML ? null : c.tablebase;
+        SearchEngine engine = new SearchEngine(c.evaluator(), SearchLimits.depth(Board.CELLS), options, tb, tt, c.salt);
+        ENGINE.set(new CachedEngine(engine, c));
+        return engine;
+    }
+
+    public static SearchResult search(Board board,Player humanPlayer,Player aiPlayer,int depth) {
+
+        return engine().search(board, humanPlayer, aiPlayer, depth);
+    }
+
+    public static SearchResult searchParallel(Board board,Player humanPlayer,Player aiPlayer,int depth) {
+
+        return searchParallel(board, humanPlayer, aiPlayer, depth, ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    // see SearchEngine.searchParallel
+    public static SearchResult searchParallel(Board board,Player humanPlayer,Player aiPlayer,int depth,
+                                              ForkJoinPool pool,int splitDepth) {
+
+        return engine().searchParallel(board, humanPlayer, aiPlayer, depth, pool, splitDepth);
+    }
+
+    // searches depth 1, 2, 3... and returns the last iteration that finished
+    // inside the budget; depth 1 always runs to completion
+    public static SearchResult searchIterative(Board board,Player humanPlayer,Player aiPlayer,SearchLimits limits) {
+
+        return searchIterative(board, humanPlayer, aiPlayer, limits, null, null);
+    }
+
+    // stop, when set from another thread, ends the search like an exhausted budget;
+    // onIteration, if given, receives the result of every completed depth
+    public static SearchResult searchIterative(Board board,Player humanPlayer,Player aiPlayer,SearchLimits limits,
+                                               AtomicBoolean stop,Consumer<SearchResult> onIteration) {
+
+        return engine().searchIterative(board, humanPlayer, aiPlayer, limits, stop, onIteration);
+    }
+
+    public static Move findBestMoveForAI(Board board,Player humanPlayer,Player aiPlayer,int depth) {
+
+        return search(board, humanPlayer, aiPlayer, depth).getBestMove();
     }
 }
@@ -0,0 +1,98 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Training rows in a compact binary file: a header (magic, version, feature
+// count, column type, row count) followed by one packed row per position, the
+// FEATURES features and then the label, each a signed byte. The file is mapped
+// read-only, so loading it costs page-ins rather than parsing.
+public class BinaryDataset {
+
+    private static final int FEATURES = Dataset.FEATURES;
+    public static final int ROW_BYTES = FEATURES + 1;
+
+    // header: magic, version, feature count, column type, row count
+    private static final int FILE_MAGIC = 0x54544453; // "TTDS"
+    private static final short FILE_VERSION = 1;
+    private static final byte TYPE_INT8 = 1;
+    static final int HEADER_BYTES = 4 + 2 + 2 + 1 + 8;
+
+    private final ByteBuffer rows;
+    private final int count;
+
+    private BinaryDataset(ByteBuffer rows, int count) {
+        this.rows = rows;
+        this.count = count;
+    }
+
+    static ByteBuffer header(long rows) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        b.putInt(FILE_MAGIC).putShort(FILE_VERSION).putShort((short) FEATURES).put(TYPE_INT8).putLong(rows);
+        return b.flip();
+    }
+
+    // checks the header and returns its row count
+    static long readHeader(FileChannel ch, Path path) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, b.position()) < 0) throw new IOException("Truncated dataset header: " + path);
+        }
+        b.flip();
+        if (b.getInt() != FILE_MAGIC || b.getShort() != FILE_VERSION
+                || b.getShort() != FEATURES || b.get() != TYPE_INT8) {
+            throw new IOException("Not a dataset file of this version: " + path);
+        }
+        long rows = b.getLong();
+        if (rows < 0 || HEADER_BYTES + rows * ROW_BYTES > ch.size()) {
+            throw new IOException("Dataset header claims more rows than the file holds: " + path);
+        }
+        return rows;
+    }
+
+    public static BinaryDataset map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long rows = readHeader(ch, path);
+            long bytes = rows * ROW_BYTES;
+            if (bytes > Integer.MAX_VALUE) throw new IOException("Dataset too large to map in one piece: " + path);
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, bytes);
+            return new BinaryDataset(map, (int) rows);
+        }
+    }
+
+    // rewrites a CSV in the training schema; returns the number of rows written
+    public static long convertCsv(Path csv, Path out) throws IOException {
+        try (BinaryDatasetWriter writer = BinaryDatasetWriter.open(out)) {
+            long before = writer.getRows();
+            CsvDatasetReader.stream(csv, 8192, (features, labels, n) -> {
+                for (int r = 0; r < n; r++) writer.append(features, r * FEATURES, labels[r]);
+            });
+            return writer.getRows() - before;
+        }
+    }
+
+    public int getRows() {
+
+        return count;
+    }
+
+    // read-only view of the packed rows, ROW_BYTES per row starting at 0
+    public ByteBuffer getBuffer() {
+
+        return rows.asReadOnlyBuffer();
+    }
+
+    public int feature(int row, int k) {
+
+        return rows.get(row * ROW_BYTES + k);
+    }
+
+    public int label(int row) {
+
+        return rows.get(row * ROW_BYTES + FEATURES);
+    }
+}
@@ -0,0 +1,111 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends rows to a BinaryDataset file, creating it if needed. The row count in
+// the header is only updated by flush() and close(), so a reader never sees a
+// half-written row, and reopening drops anything written after the last flush.
+public class BinaryDatasetWriter implements DatasetSink {
+
+    private static final int FEATURES = Dataset.FEATURES;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BinaryDataset.ROW_BYTES * 8192);
+    private long rows;
+
+    private BinaryDatasetWriter(FileChannel channel, long rows) {
+        this.channel = channel;
+        this.rows = rows;
+    }
+
+    public static BinaryDatasetWriter open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long rows = 0;
+            if (ch.size() == 0) {
+                ch.write(BinaryDataset.header(0), 0);
+            } else {
+                rows = BinaryDataset.readHeader(ch, path);
+            }
+            ch.truncate(BinaryDataset.HEADER_BYTES + rows * BinaryDataset.ROW_BYTES);
+            ch.position(ch.size());
+            return new BinaryDatasetWriter(ch, rows);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // features as laid out by FeatureExtractor; every value must fit a signed byte
+    @Override
+    public void append(int[] features, int label) throws IOException {
+        if (buffer.remaining() < BinaryDataset.ROW_BYTES) drain();
+        int start = buffer.position();
+        try {
+            for (int k = 0; k < FEATURES; k++) buffer.put(toByte(features[k]));
+            buffer.put(toByte(label));
+        } catch (IllegalArgumentException e) {
+            // drop the part of the row already buffered, so later rows stay aligned
+            buffer.position(start);
+            throw e;
+        }
+        rows++;
+    }
+
+    // a row from a flat Dataset array; the values must be whole numbers
+    public void append(double[] features, int offset, double label) throws IOException {
+        if (buffer.remaining() < BinaryDataset.ROW_BYTES) drain();
+        int start = buffer.position();
+        try {
+            for (int k = 0; k < FEATURES; k++) buffer.put(toByte(features[offset + k]));
+            buffer.put(toByte(label));
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            throw e;
+        }
+        rows++;
+    }
+
+    private static byte toByte(double v) {
+        if (v != Math.rint(v)) throw new IllegalArgumentException("Not a whole number: " + v);
+        return toByte((int) v);
+    }
+
+    private static byte toByte(int v) {
+        if (v < Byte.MIN_VALUE || v > Byte.MAX_VALUE) throw new IllegalArgumentException("Does not fit a byte: " + v);
+        return (byte) v;
+    }
+
+    public long getRows() {
+
+        return rows;
+    }
+
+    // makes everything appended so far visible to readers
+    public void flush() throws IOException {
+        drain();
+        channel.force(false);
+        ByteBuffer header = BinaryDataset.header(rows);
+        while (header.hasRemaining()) channel.write(header, header.position());
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
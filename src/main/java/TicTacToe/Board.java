@@ -5,95 +5,216 @@ import java.util.List;
 
 public class Board {
 
-    private Player[][] cells;
     public static final int SIZE = 3;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int FULL_MASK = (1 << CELLS) - 1;
+    // number of cell configurations, each cell being empty, X or O
+    public static final int STATES = pow3(CELLS);
+
+    // one mask per row, column and diagonal (8 lines on 3x3)
+    static final int[] WIN_MASKS = buildWinMasks();
+    // for each cell, the win lines that pass through it
+    static final int[][] LINES_THROUGH = buildLinesThrough();
+    // base-3 weight of every player mask: sum of 3^i over its set bits
+    private static final int[] BASE3 = buildBase3();
+
+    // bit (row * SIZE + col) is set when that player occupies the cell
+    private int xMask;
+    private int oMask;
+    // Zobrist hash of the occupied cells, kept in step with the masks
+    private long hash;
 
     public Board() {
-        cells = new Player[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                cells[r][c] = Player.EMPTY;
-            }
-        }
+        xMask = 0;
+        oMask = 0;
+        hash = 0L;
     }
 
     public Board(Board other) {
-        cells = new Player[SIZE][SIZE];
+        xMask = other.xMask;
+        oMask = other.oMask;
+        hash = other.hash;
+    }
+
+    private static int pow3(int n) {
+        int p = 1;
+        for (int i = 0; i < n; i++) p *= 3;
+        return p;
+    }
+
+    private static int[] buildBase3() {
+        int[] table = new int[1 << CELLS];
+        for (int mask = 1; mask < table.length; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            table[mask] = table[mask & (mask - 1)] + pow3(low);
+        }
+        return table;
+    }
+
+    // X cells count 1 and O cells count 2 in their base-3 digit
+    public static int stateIndex(int xMask, int oMask) {
+
+        return BASE3[xMask] + 2 * BASE3[oMask];
+    }
+
+    public int stateIndex() {
+
+        return stateIndex(xMask, oMask);
+    }
+
+    static Board fromMasks(int xMask, int oMask) {
+        Board b = new Board();
+        for (int m = xMask; m != 0; m &= m - 1) b.makeMove(Integer.numberOfTrailingZeros(m), Player.X);
+        for (int m = oMask; m != 0; m &= m - 1) b.makeMove(Integer.numberOfTrailingZeros(m), Player.O);
+        return b;
+    }
+
+    private static int[] buildWinMasks() {
+        int[] masks = new int[2 * SIZE + 2];
+        int n = 0;
+
         for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                cells[r][c] = other.cells[r][c];
+            int m = 0;
+            for (int c = 0; c < SIZE; c++) m |= bit(r, c);
+            masks[n++] = m;
+        }
+
+        for (int c = 0; c < SIZE; c++) {
+            int m = 0;
+            for (int r = 0; r < SIZE; r++) m |= bit(r, c);
+            masks[n++] = m;
+        }
+
+        int diag = 0, anti = 0;
+        for (int i = 0; i < SIZE; i++) {
+            diag |= bit(i, i);
+            anti |= bit(i, SIZE - 1 - i);
+        }
+        masks[n++] = diag;
+        masks[n] = anti;
+        return masks;
+    }
+
+    private static int[][] buildLinesThrough() {
+        int[][] table = new int[CELLS][];
+        for (int i = 0; i < CELLS; i++) {
+            int n = 0;
+            for (int line : WIN_MASKS) {
+                if ((line & (1 << i)) != 0) n++;
+            }
+            table[i] = new int[n];
+            n = 0;
+            for (int line : WIN_MASKS) {
+                if ((line & (1 << i)) != 0) table[i][n++] = line;
             }
         }
+        return table;
     }
 
-    public Player getCell(int row, int col) {
+    static int bit(int row, int col) {
 
-        return cells[row][col];
+        return 1 << (row * SIZE + col);
     }
 
-    public void setCell(int row, int col, Player p) {
+    public Player getCell(int row, int col) {
+        int b = bit(row, col);
+        if ((xMask & b) != 0) return Player.X;
+        if ((oMask & b) != 0) return Player.O;
+        return Player.EMPTY;
+    }
 
-        cells[row][col] = p;
+    public void setCell(int row, int col, Player p) {
+        int index = row * SIZE + col;
+        unmakeMove(index);
+        makeMove(index, p);
     }
 
     public boolean isEmptyCell(int row, int col) {
 
-        return cells[row][col] == Player.EMPTY;
+        return ((xMask | oMask) & bit(row, col)) == 0;
+    }
+
+    public int getXMask() { return xMask; }
+    public int getOMask() { return oMask; }
+
+    public long getHash() { return hash; }
+
+    public int getMask(Player p) {
+        if (p == Player.X) return xMask;
+        if (p == Player.O) return oMask;
+        return 0;
+    }
+
+    public int getEmptyMask() {
+
+        return ~(xMask | oMask) & FULL_MASK;
     }
 
     public List<Move> getLegalMoves() {
         List<Move> moves = new ArrayList<>();
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                if (cells[r][c] == Player.EMPTY) {
-                    moves.add(new Move(r, c));
-                }
-            }
+        int empty = getEmptyMask();
+        while (empty != 0) {
+            int idx = Integer.numberOfTrailingZeros(empty);
+            moves.add(new Move(idx / SIZE, idx % SIZE));
+            empty &= empty - 1;
         }
         return moves;
     }
 
-    public boolean isFull() {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                if (cells[r][c] == Player.EMPTY) {
-                    return false;
-                }
-            }
+    // fills out with the empty cell indices (row * SIZE + col), returns the count
+    public int generateMoves(int[] out) {
+        int n = 0;
+        int empty = getEmptyMask();
+        while (empty != 0) {
+            out[n++] = Integer.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
         }
-        return true;
+        return n;
     }
 
-    public Player getWinner() {
+    public void makeMove(int index, Player p) {
+        if (p == Player.X) xMask |= 1 << index;
+        else if (p == Player.O) oMask |= 1 << index;
+        hash ^= Zobrist.cell(index, p);
+    }
 
-        for (int r = 0; r < SIZE; r++) {
-            if (cells[r][0] != Player.EMPTY && cells[r][0] == cells[r][1] && cells[r][1] == cells[r][2]) {
-                return cells[r][0];
-            }
-        }
+    public void unmakeMove(int index) {
+        int b = 1 << index;
+        if ((xMask & b) != 0) hash ^= Zobrist.cell(index, Player.X);
+        else if ((oMask & b) != 0) hash ^= Zobrist.cell(index, Player.O);
+        xMask &= ~b;
+        oMask &= ~b;
+    }
 
+    public boolean isFull() {
 
-        for (int c = 0; c < SIZE; c++) {
-            if (cells[0][c] != Player.EMPTY && cells[0][c] == cells[1][c] && cells[1][c] == cells[2][c]) {
-                return cells[0][c];
-            }
-        }
+        return (xMask | oMask) == FULL_MASK;
+    }
 
+    public Player getWinner() {
+        if (hasLine(xMask)) return Player.X;
+        if (hasLine(oMask)) return Player.O;
+        return Player.EMPTY;
+    }
 
-        if (cells[0][0] != Player.EMPTY && cells[0][0] == cells[1][1] && cells[1][1] == cells[2][2]) {
-            return cells[0][0];
+    static boolean hasLine(int mask) {
+        for (int line : WIN_MASKS) {
+            if ((mask & line) == line) return true;
         }
+        return false;
+    }
 
-
-        if (cells[0][2] != Player.EMPTY && cells[0][2] == cells[1][1] && cells[1][1] == cells[2][0]) {
-            return cells[0][2];
+    // true if adding cell index to mask completes one of its lines
+    static boolean completesLine(int mask, int index) {
+        int m = mask | (1 << index);
+        for (int line : LINES_THROUGH[index]) {
+            if ((m & line) == line) return true;
         }
-
-        return Player.EMPTY;
+        return false;
     }
 
     public boolean isTerminal() {
 
-        return getWinner() != Player.EMPTY || isFull();
+        return isFull() || hasLine(xMask) || hasLine(oMask);
     }
 }
@@ -0,0 +1,194 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads the training CSV (a header line, then FEATURES feature columns and a
+// label per row) by memory-mapping the file a window at a time and parsing the
+// numbers straight from the mapped bytes, so no String is made per line or
+// field. Blank rows and rows without exactly FEATURES + 1 numbers are skipped.
+public class CsvDatasetReader {
+
+    private static final int FEATURES = Dataset.FEATURES;
+    private static final int COLUMNS = FEATURES + 1;
+
+    // bytes mapped at a time; a line must fit in one window
+    private static final long WINDOW = 64L << 20;
+
+    // every double below 2^53 divided by an exact power of ten rounds the same as parseDouble
+    private static final long MAX_EXACT = 1L << 53;
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10.0;
+    }
+
+    public interface ChunkHandler {
+        // the arrays are reused for the next chunk; copy anything that must be kept
+        void accept(double[] features, double[] labels, int rows) throws IOException;
+    }
+
+    private interface RowSink {
+        void accept(double[] row) throws IOException;
+    }
+
+    private CsvDatasetReader() {
+    }
+
+    // the whole file in one Dataset, sized from a quick count of its lines
+    public static Dataset load(Path path) throws IOException {
+        long lines = countLines(path);
+        if (lines > Integer.MAX_VALUE / COLUMNS) {
+            throw new IOException("Too many rows to load at once (" + lines + "), stream them instead: " + path);
+        }
+        double[] features = new double[(int) lines * FEATURES];
+        double[] labels = new double[(int) lines];
+        int[] rows = {0};
+
+        readRows(path, row -> {
+            int r = rows[0]++;
+            System.arraycopy(row, 0, features, r * FEATURES, FEATURES);
+            labels[r] = row[FEATURES];
+        });
+        return new Dataset(features, labels, rows[0]);
+    }
+
+    // hands the rows over chunkRows at a time, so memory use does not grow with the file
+    public static void stream(Path path, int chunkRows, ChunkHandler handler) throws IOException {
+        if (chunkRows < 1) throw new IllegalArgumentException("chunkRows must be at least 1: " + chunkRows);
+        double[] features = new double[chunkRows * FEATURES];
+        double[] labels = new double[chunkRows];
+        int[] rows = {0};
+
+        readRows(path, row -> {
+            int r = rows[0];
+            System.arraycopy(row, 0, features, r * FEATURES, FEATURES);
+            labels[r] = row[FEATURES];
+            if (++rows[0] == chunkRows) {
+                handler.accept(features, labels, chunkRows);
+                rows[0] = 0;
+            }
+        });
+        if (rows[0] > 0) handler.accept(features, labels, rows[0]);
+    }
+
+    private static long countLines(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long lines = 0;
+            byte last = '\n';
+            for (long pos = 0; pos < size; pos += WINDOW) {
+                int len = (int) Math.min(WINDOW, size - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                for (int i = 0; i < len; i++) {
+                    if (buf.get(i) == '\n') lines++;
+                }
+                last = buf.get(len - 1);
+            }
+            return last == '\n' ? lines : lines + 1;
+        }
+    }
+
+    private static void readRows(Path path, RowSink sink) throws IOException {
+        double[] row = new double[COLUMNS];
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            boolean header = true;
+
+            while (pos < size) {
+                int len = (int) Math.min(WINDOW, size - pos);
+                boolean lastWindow = pos + len == size;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+                int start = 0;
+                while (start < len) {
+                    int end = start;
+                    while (end < len && buf.get(end) != '\n') end++;
+                    // an unfinished line is read again from the start of the next window
+                    if (end == len && !lastWindow) break;
+
+                    if (header) header = false;
+                    else if (parseRow(buf, start, end, row)) sink.accept(row);
+                    start = end + 1;
+                }
+
+                if (lastWindow) break;
+                if (start == 0) throw new IOException("Line longer than " + WINDOW + " bytes in " + path);
+                pos += start;
+            }
+        }
+    }
+
+    private static boolean parseRow(MappedByteBuffer buf, int from, int to, double[] row) {
+        while (from < to && buf.get(from) <= ' ') from++;
+        while (to > from && buf.get(to - 1) <= ' ') to--;
+        if (from == to) return false;
+
+        int col = 0;
+        int p = from;
+        while (true) {
+            int q = p;
+            while (q < to && buf.get(q) != ',') q++;
+            if (col == COLUMNS) return false;
+
+            double v = parseNumber(buf, p, q);
+            if (Double.isNaN(v)) return false;
+            row[col++] = v;
+
+            if (q == to) break;
+            p = q + 1;
+        }
+        return col == COLUMNS;
+    }
+
+    // NaN when the field is not a number
+    private static double parseNumber(MappedByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) <= ' ') from++;
+        while (to > from && buf.get(to - 1) <= ' ') to--;
+
+        int p = from;
+        boolean negative = false;
+        if (p < to && (buf.get(p) == '-' || buf.get(p) == '+')) {
+            negative = buf.get(p) == '-';
+            p++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; p < to; p++) {
+            byte c = buf.get(p);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT / 10) return parseSlow(buf, from, to);
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) scale++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                // exponents and anything unusual
+                return parseSlow(buf, from, to);
+            }
+        }
+        if (digits == 0 || scale >= POW10.length) return parseSlow(buf, from, to);
+
+        double v = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+
+    private static double parseSlow(MappedByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
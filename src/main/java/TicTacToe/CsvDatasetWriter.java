@@ -0,0 +1,36 @@
+package TicTacToe;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Writes rows in the schema of tictactoe_dataset.csv, header included.
+public class CsvDatasetWriter implements DatasetSink {
+
+    private static final String HEADER = "f1_X_count,f2_O_count,f3_X_almost_win,f4_O_almost_win,f5_X_center,f6_X_corners,label";
+
+    private final BufferedWriter out;
+
+    public CsvDatasetWriter(Path path) throws IOException {
+        out = Files.newBufferedWriter(path);
+        out.write(HEADER);
+        out.write('\n');
+    }
+
+    @Override
+    public void append(int[] features, int label) throws IOException {
+        for (int k = 0; k < FeatureExtractor.COUNT; k++) {
+            out.write(Integer.toString(features[k]));
+            out.write(',');
+        }
+        out.write(Integer.toString(label));
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        out.close();
+    }
+}
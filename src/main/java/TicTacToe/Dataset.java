@@ -0,0 +1,26 @@
+package TicTacToe;
+
+// Training rows held in two contiguous arrays: FEATURES raw feature values per
+// row, laid out as in FeatureExtractor, and one label per row. The arrays may
+// be longer than rows; anything past the last row is unused.
+public class Dataset {
+
+    public static final int FEATURES = FeatureExtractor.COUNT;
+
+    private final double[] features;
+    private final double[] labels;
+    private final int rows;
+
+    public Dataset(double[] features, double[] labels, int rows) {
+        if (features.length < (long) rows * FEATURES || labels.length < rows) {
+            throw new IllegalArgumentException("Arrays too short for " + rows + " rows");
+        }
+        this.features = features;
+        this.labels = labels;
+        this.rows = rows;
+    }
+
+    public double[] getFeatures() { return features; }
+    public double[] getLabels() { return labels; }
+    public int getRows() { return rows; }
+}
@@ -0,0 +1,10 @@
+package TicTacToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Somewhere training rows can be written: features as laid out by
+// FeatureExtractor plus a label for X.
+public interface DatasetSink extends Closeable {
+    void append(int[] features, int label) throws IOException;
+}
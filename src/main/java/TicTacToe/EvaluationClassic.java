@@ -2,6 +2,9 @@ package TicTacToe;
 
 public class EvaluationClassic {
 
+    private static final int CENTER_BIT = Board.bit(1, 1);
+    private static final int CORNER_MASK = Board.bit(0, 0) | Board.bit(0, 2) | Board.bit(2, 0) | Board.bit(2, 2);
+
     public static int evaluate(Board board, Player humanPlayer) {
         Player aiPlayer = humanPlayer.opposite();
         Player winner = board.getWinner();
@@ -10,50 +13,28 @@ public class EvaluationClassic {
         if (winner == aiPlayer) return -1000;
         if (board.isFull()) return 0;
 
-        int score = 0;
-
+        int human = board.getMask(humanPlayer);
+        int ai = board.getMask(aiPlayer);
 
-        if (board.getCell(1, 1) == humanPlayer) score += 3;
-        else if (board.getCell(1, 1) == aiPlayer) score -= 3;
+        int score = 0;
 
 
-        int[][] corners = { {0,0}, {0,2}, {2,0}, {2,2} };
-        for (int[] c : corners) {
-            Player p = board.getCell(c[0], c[1]);
-            if (p == humanPlayer) score += 1;
-            else if (p == aiPlayer) score -= 1;
-        }
+        if ((human & CENTER_BIT) != 0) score += 3;
+        else if ((ai & CENTER_BIT) != 0) score -= 3;
 
-        score += evalLine(board, humanPlayer, 0,0,0,1,0,2);
-        score += evalLine(board, humanPlayer, 1,0,1,1,1,2);
-        score += evalLine(board, humanPlayer, 2,0,2,1,2,2);
 
-        score += evalLine(board, humanPlayer, 0,0,1,0,2,0);
-        score += evalLine(board, humanPlayer, 0,1,1,1,2,1);
-        score += evalLine(board, humanPlayer, 0,2,1,2,2,2);
+        score += Integer.bitCount(human & CORNER_MASK);
+        score -= Integer.bitCount(ai & CORNER_MASK);
 
-        score += evalLine(board, humanPlayer, 0,0,1,1,2,2);
-        score += evalLine(board, humanPlayer, 0,2,1,1,2,0);
+        // rows, columns and both diagonals
+        for (int line : Board.WIN_MASKS) {
+            score += evalLine(Integer.bitCount(human & line), Integer.bitCount(ai & line));
+        }
 
         return score;
     }
 
-    private static int evalLine(Board board, Player human, int r1,int c1,int r2,int c2,int r3,int c3) {
-        Player ai = human.opposite();
-
-        Player[] line = {
-                board.getCell(r1,c1),
-                board.getCell(r2,c2),
-                board.getCell(r3,c3)
-        };
-
-        int humanCount = 0;
-        int aiCount = 0;
-
-        for (Player p : line) {
-            if (p == human) humanCount++;
-            else if (p == ai) aiCount++;
-        }
+    private static int evalLine(int humanCount, int aiCount) {
 
         if (humanCount> 0 && aiCount > 0) return 0;
 
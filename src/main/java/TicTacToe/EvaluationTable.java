@@ -0,0 +1,107 @@
+package TicTacToe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.IntStream;
+
+// Every evaluator score precomputed for all 3^CELLS cell configurations and
+// both human sides, so a leaf evaluation is a single array lookup.
+public class EvaluationTable implements BoardEvaluator {
+
+    private static final int STATES = Board.STATES;
+
+    // table file: magic, version, source checksum, state count, then both score arrays
+    private static final int TABLE_MAGIC = 0x54544554; // "TTET"
+    private static final short TABLE_VERSION = 1;
+
+    private final short[] humanX;
+    private final short[] humanO;
+
+    private EvaluationTable(short[] humanX, short[] humanO) {
+        this.humanX = humanX;
+        this.humanO = humanO;
+    }
+
+    // compiled on first use and shared, it never changes
+    private static final class Classic {
+        static final EvaluationTable TABLE = compile(EvaluationClassic::evaluate);
+    }
+
+    // the classic heuristic as a table
+    public static EvaluationTable classic() {
+
+        return Classic.TABLE;
+    }
+
+    // evaluator must be safe to call from several threads at once
+    public static EvaluationTable compile(BoardEvaluator evaluator) {
+        short[] humanX = new short[STATES];
+        short[] humanO = new short[STATES];
+
+        IntStream.range(0, STATES).parallel().forEach(state -> {
+            int xMask = 0, oMask = 0;
+            int rest = state;
+            for (int i = 0; i < Board.CELLS; i++) {
+                int digit = rest % 3;
+                rest /= 3;
+                if (digit == 1) xMask |= 1 << i;
+                else if (digit == 2) oMask |= 1 << i;
+            }
+            Board board = Board.fromMasks(xMask, oMask);
+            humanX[state] = toShort(evaluator.evaluate(board, Player.X));
+            humanO[state] = toShort(evaluator.evaluate(board, Player.O));
+        });
+        return new EvaluationTable(humanX, humanO);
+    }
+
+    private static short toShort(int score) {
+        if (score < Short.MIN_VALUE || score > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Score does not fit the table: " + score);
+        }
+        return (short) score;
+    }
+
+    @Override
+    public int evaluate(Board board, Player humanPlayer) {
+        int i = board.stateIndex();
+        return humanPlayer == Player.X ? humanX[i] : humanO[i];
+    }
+
+    public void save(Path path, long sourceChecksum) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(TABLE_MAGIC);
+            out.writeShort(TABLE_VERSION);
+            out.writeLong(sourceChecksum);
+            out.writeInt(STATES);
+            for (short v : humanX) out.writeShort(v);
+            for (short v : humanO) out.writeShort(v);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null when the file is missing, from another version or built from other data
+    public static EvaluationTable loadIfCurrent(Path path, long sourceChecksum) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != TABLE_MAGIC) return null;
+            if (in.readShort() != TABLE_VERSION) return null;
+            if (in.readLong() != sourceChecksum) return null;
+            if (in.readInt() != STATES) return null;
+
+            short[] humanX = new short[STATES];
+            short[] humanO = new short[STATES];
+            for (int i = 0; i < STATES; i++) humanX[i] = in.readShort();
+            for (int i = 0; i < STATES; i++) humanO[i] = in.readShort();
+            return new EvaluationTable(humanX, humanO);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
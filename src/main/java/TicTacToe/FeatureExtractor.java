@@ -2,70 +2,66 @@ package TicTacToe;
 
 public class FeatureExtractor {
 
-    public static int[] extractFeatures(Board board, Player humanPlayer) {
+    // feature layout, always from X's point of view
+    public static final int COUNT = 6;
+    public static final int X_COUNT = 0;
+    public static final int O_COUNT = 1;
+    public static final int X_ALMOST = 2;
+    public static final int O_ALMOST = 3;
+    public static final int X_CENTER = 4;
+    public static final int X_CORNERS = 5;
 
-        Player aiPlayer = humanPlayer.opposite();
+    // network inputs are feature / SCALE, in training and inference alike
+    static final double[] SCALE = {5.0, 5.0, 5.0, 5.0, 1.0, 5.0};
 
-        int f1_X_count = 0;
-        int f2_O_count = 0;
-        int f3_X_almost = 0;
-        int f4_O_almost = 0;
-        int f5_X_center = 0;
-        int f6_X_corners = 0;
+    static final int CENTER_BIT = Board.bit(1, 1);
+    static final int CORNER_MASK = Board.bit(0, 0) | Board.bit(0, 2) | Board.bit(2, 0) | Board.bit(2, 2);
 
+    public static int[] extractFeatures(Board board, Player humanPlayer) {
+        int[] out = new int[COUNT];
+        extract(board, out);
+        return out;
+    }
 
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                Player p = board.getCell(r, c);
-                if (p == Player.X) f1_X_count++;
-                else if (p == Player.O) f2_O_count++;
-            }
-        }
+    public static void extract(Board board, int[] out) {
 
+        extract(board.getXMask(), board.getOMask(), out);
+    }
 
-        if (board.getCell(1, 1) == Player.X) {
-            f5_X_center = 1;
+    public static void extract(int xMask, int oMask, int[] out) {
+        int xAlmost = 0;
+        int oAlmost = 0;
+        for (int line : Board.WIN_MASKS) {
+            int xr = Integer.bitCount(xMask & line);
+            int or = Integer.bitCount(oMask & line);
+            if (xr == 2 && or == 0) xAlmost++;
+            if (or == 2 && xr == 0) oAlmost++;
         }
 
+        out[X_COUNT] = Integer.bitCount(xMask);
+        out[O_COUNT] = Integer.bitCount(oMask);
+        out[X_ALMOST] = xAlmost;
+        out[O_ALMOST] = oAlmost;
+        out[X_CENTER] = (xMask & CENTER_BIT) != 0 ? 1 : 0;
+        out[X_CORNERS] = Integer.bitCount(xMask & CORNER_MASK);
+    }
 
-        int[][] corners = { {0,0}, {0,2}, {2,0}, {2,2} };
-        for (int[] cc : corners) {
-            if (board.getCell(cc[0], cc[1]) == Player.X) {
-                f6_X_corners++;
-            }
+    public static void normalize(int[] features, double[] out) {
+        for (int k = 0; k < COUNT; k++) {
+            out[k] = features[k] / SCALE[k];
         }
+    }
 
+    // same scaling for features read back from a dataset row
+    public static void normalize(double[] features) {
 
-        int[][] lines = {
-                {0,0, 0,1, 0,2},
-                {1,0, 1,1, 1,2},
-                {2,0, 2,1, 2,2},
-                {0,0, 1,0, 2,0},
-                {0,1, 1,1, 2,1},
-                {0,2, 1,2, 2,2},
-                {0,0, 1,1, 2,2},
-                {0,2, 1,1, 2,0}
-        };
-
-        for (int[] L : lines) {
-            int xr = 0, or = 0, empty = 0;
-
-            Player p1 = board.getCell(L[0], L[1]);
-            Player p2 = board.getCell(L[2], L[3]);
-            Player p3 = board.getCell(L[4], L[5]);
-
-            Player[] arr = { p1, p2, p3 };
-            for (Player p : arr) {
-                if (p == Player.X) xr++;
-                else if (p == Player.O) or++;
-                else empty++;
-            }
+        normalize(features, 0);
+    }
 
-            if (xr == 2 && empty == 1) f3_X_almost++;
-            if (or == 2 && empty == 1) f4_O_almost++;
+    // in place, for the row starting at offset in a flat array of rows
+    public static void normalize(double[] rows, int offset) {
+        for (int k = 0; k < COUNT; k++) {
+            rows[offset + k] /= SCALE[k];
         }
-
-        return new int[] {f1_X_count, f2_O_count,f3_X_almost, f4_O_almost,f5_X_center,f6_X_corners
-        };
     }
 }
@@ -1,11 +1,12 @@
 package TicTacToe;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 
 import java.io.IOException;
-import java.util.List;
+import java.nio.file.Path;
 
 public class GameController {
 
@@ -13,6 +14,7 @@ public class GameController {
     @FXML private RadioButton xRadio, oRadio;
     @FXML private ComboBox<String> difficultyCombo, evalCombo;
     @FXML private Button startButton, resetButton;
+    @FXML private CheckBox statsCheck;
     @FXML private Label statusLabel, statusMiniLabel, aiInfoLabel, scoreLabel;
 
     private ToggleGroup playerToggleGroup;
@@ -26,23 +28,47 @@ public class GameController {
     private int aiWins = 0;
     private int draws = 0;
 
-    // ML model shared by the game
-    private static MLModel mlModel = new MLModel();
+    // upper bound on AI think time; the difficulty depth is reached well within it
+    private static final long AI_TIME_BUDGET_MS = 250;
+
+    // searches run off the FX thread; results come back through runLater
+    private final SearchService searchService = new SearchService(Platform::runLater);
+
+    private static final Path DATASET_PATH = Path.of("src/main/resources/tictactoe_dataset.csv");
+    private static final Path WEIGHTS_PATH = Path.of("tictactoe_model.bin");
+    private static final Path TABLE_PATH = Path.of("tictactoe_model.table");
+    private static final Path TABLEBASE_PATH = Path.of("tictactoe.tablebase");
+
+    // ML model shared by the game; untrained until loaded or trained
+    private static volatile MLModel mlModel = new MLModel();
+    // compiled from mlModel once it is trained, null until then
+    private static volatile EvaluationTable mlTable = null;
+    private static volatile Tablebase tablebase = null;
+
+    // this game's search settings; the engine is built on the AI's first move
+    private boolean useML;
+    private SearchEngine engine;
 
     @FXML
     public void initialize() {
-        // train ML model once
+        // reuse the saved weights while the dataset is unchanged, retrain otherwise
         try {
+            long checksum = MLModel.datasetChecksum(DATASET_PATH);
+            MLModel cached = null;
+            try {
+                cached = MLModel.loadIfCurrent(WEIGHTS_PATH, checksum);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable ML weights: " + e.getMessage());
+            }
 
-            mlModel.trainFromCsv("src/main/resources/tictactoe_dataset.csv",
-                    0.7,  // 70% train
-                    5000, // epochs
-                    0.03  // learning rate
-            );
-            AlphaBeta.setMLModel(mlModel);
+            if (cached != null) {
+                mlModel = cached;
+            }
+            prepareMLInBackground(cached, checksum);
         } catch (IOException e) {
-            System.err.println("Could not train ML model: " + e.getMessage());
+            System.err.println("Could not read ML dataset: " + e.getMessage());
         }
+        loadTablebase();
 
 
         playerToggleGroup = new ToggleGroup();
@@ -64,6 +90,73 @@ public class GameController {
 
     }
 
+    // maps the solved positions from disk, solving and writing them on first run
+    private void loadTablebase() {
+        try {
+            tablebase = Tablebase.map(TABLEBASE_PATH);
+            return;
+        } catch (IOException e) {
+            // missing or outdated, solve it below
+        }
+        Thread solver = new Thread(() -> {
+            Tablebase tb = Tablebase.solve();
+            tablebase = tb;
+            try {
+                tb.write(TABLEBASE_PATH);
+            } catch (IOException e) {
+                System.err.println("Could not write tablebase: " + e.getMessage());
+            }
+        }, "tablebase-solver");
+        solver.setDaemon(true);
+        solver.start();
+    }
+
+    // trains the model if there was no current one, then loads or compiles its
+    // evaluation table and swaps both in on the FX thread
+    private void prepareMLInBackground(MLModel cached, long checksum) {
+        Thread trainer = new Thread(() -> {
+            try {
+                MLModel model = cached;
+                if (model == null) {
+                    model = new MLModel();
+                    model.trainFromCsv(DATASET_PATH.toString(),
+                            0.7,  // 70% train
+                            5000, // epochs
+                            0.03  // learning rate
+                    );
+                    if (!model.isTrained()) return;
+                    model.save(WEIGHTS_PATH, checksum);
+                }
+
+                EvaluationTable table = null;
+                if (cached != null) {
+                    try {
+                        table = EvaluationTable.loadIfCurrent(TABLE_PATH, checksum);
+                    } catch (IOException e) {
+                        System.err.println("Ignoring unreadable ML table: " + e.getMessage());
+                    }
+                }
+                if (table == null) {
+                    table = EvaluationTable.compile(model);
+                    table.save(TABLE_PATH, checksum);
+                }
+
+                // swap in; games started from now on use it
+                MLModel trained = model;
+                EvaluationTable compiled = table;
+                Platform.runLater(() -> {
+                    mlModel = trained;
+                    mlTable = compiled;
+                    if (cached == null) statusMiniLabel.setText("ML model trained.");
+                });
+            } catch (IOException e) {
+                System.err.println("Could not train ML model: " + e.getMessage());
+            }
+        }, "ml-training");
+        trainer.setDaemon(true);
+        trainer.start();
+    }
+
     private void buildBoardGrid() {
         boardGrid.getChildren().clear();
         boardGrid.getColumnConstraints().clear();
@@ -102,13 +195,14 @@ public class GameController {
 
     @FXML
     private void onStartGame() {
+        searchService.cancel();
         humanPlayer = xRadio.isSelected() ? Player.X : Player.O;
         aiPlayer = humanPlayer.opposite();
 
 
         String eval = evalCombo.getValue();
-        boolean useML = "ML evaluation".equals(eval);
-        AlphaBeta.setUseML(useML);
+        useML = "ML evaluation".equals(eval);
+        engine = null;
 
         if (useML) {
             if (mlModel != null && mlModel.isTrained()) {
@@ -116,7 +210,7 @@ public class GameController {
                         + " | Eval: ML (trained, 70/30 split)");
             } else {
                 statusMiniLabel.setText("ML not trained – using classical instead.");
-                AlphaBeta.setUseML(false);
+                useML = false;
             }
         } else {
             statusMiniLabel.setText("Difficulty: " + difficultyCombo.getValue()
@@ -137,6 +231,7 @@ public class GameController {
 
     @FXML
     private void onResetClicked() {
+        searchService.cancel();
         resetGameState();
         statusLabel.setText("Welcome to Tic Tac Toe AI.");
         statusMiniLabel.setText("Ready.");
@@ -180,22 +275,56 @@ public class GameController {
 
         int depth = getDepthFromDifficulty();
 
+        setBoardLocked(true);
+        aiInfoLabel.setText("AI thinking...");
+        searchService.start(engineFor(depth), board, humanPlayer, aiPlayer,
+                this::showAiProgress, this::applyAiResult, this::showAiError);
+    }
 
-        List<String> evals = AlphaBeta.getAllMoveEvaluations(
-                board, humanPlayer, aiPlayer, depth);
+    // this game's engine, rebuilt when the difficulty or the statistics setting changes
+    private SearchEngine engineFor(int depth) {
+        if (engine == null || engine.getLimits().getMaxDepth() != depth) {
+            EvaluationTable table = mlTable;
+            BoardEvaluator evaluator = !useML ? EvaluationTable.classic() : table != null ? table : mlModel;
+            SearchOptions options = statsCheck.isSelected() ? SearchOptions.withStatistics() : SearchOptions.defaults();
+            // ML scores finished games its own way, so the tablebase would change its answers
+            engine = new SearchEngine(evaluator, new SearchLimits(depth, AI_TIME_BUDGET_MS, 0), options,
+                    useML ? null : tablebase);
+        }
+        return engine;
+    }
+
+    @FXML
+    private void onStatsToggled() {
+
+        engine = null;
+    }
+
+    private void showAiProgress(SearchResult partial) {
+        Move best = partial.getBestMove();
+        if (best == null) return;
+        aiInfoLabel.setText("AI thinking... depth " + partial.getDepth()
+                + ", best so far (" + (best.getRow() + 1) + "," + (best.getCol() + 1)
+                + ") → Score = " + best.getScore());
+    }
 
+    private void applyAiResult(SearchResult result) {
         StringBuilder sb = new StringBuilder();
         sb.append("AI Evaluations (")
                 .append(evalCombo.getValue())
                 .append("):\n");
-        for (String s : evals) {
-            sb.append(s).append("\n");
+        for (Move m : result.getRootMoves()) {
+            sb.append("AI move (").append(m.getRow() + 1).append(",").append(m.getCol() + 1)
+                    .append(") → Score = ").append(m.getScore()).append("\n");
+        }
+        if (result.getStats() != null && statsCheck.isSelected()) {
+            sb.append("\n").append(result.getStats());
         }
         aiInfoLabel.setText(sb.toString());
 
+        setBoardLocked(false);
 
-        Move bestMove = AlphaBeta.findBestMoveForAI(
-                board, humanPlayer, aiPlayer, depth);
+        Move bestMove = result.getBestMove();
 
         if (bestMove == null) return;
 
@@ -205,6 +334,13 @@ public class GameController {
         currentPlayer = humanPlayer;
     }
 
+    // the game cannot go on without the AI's move, so it ends here
+    private void showAiError(Throwable e) {
+        aiInfoLabel.setText("AI search failed: " + e);
+        statusLabel.setText("AI search failed. Start a new game to play again.");
+        disableBoard();
+    }
+
     private void playMove(int row, int col, Player player) {
         board.setCell(row, col, player);
         cellButtons[row][col].setText(player.toString());
@@ -237,14 +373,20 @@ public class GameController {
         return false;
     }
 
-    private void disableBoard() {
+    // keeps the human from clicking while the AI is searching
+    private void setBoardLocked(boolean locked) {
         for (Button[] row : cellButtons) {
             for (Button btn : row) {
-                btn.setDisable(true);
+                btn.setDisable(locked);
             }
         }
     }
 
+    private void disableBoard() {
+
+        setBoardLocked(true);
+    }
+
     private void updateScoreLabel() {
         scoreLabel.setText("You " + humanWins + " : " + aiWins + " AI | Draws " + draws);
     }
@@ -0,0 +1,145 @@
+package TicTacToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless game server: every connection on localhost is a game session (see
+// GameSession for the protocol) running on its own virtual thread. Sessions
+// share the evaluators, which are read-only, and borrow a SearchEngine from a
+// pool per evaluator only for the length of a search, so memory follows the
+// number of searches in flight rather than the number of open sessions.
+public class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7878;
+
+    // pooled engines keep their tables between sessions; entries stay valid
+    // because every engine in a pool searches with the same evaluator
+    private static final int TABLE_BITS = 14;
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocket serverSocket;
+    private final Map<String, BoardEvaluator> evaluators;
+    private final Tablebase tablebase;
+    private final Map<String, ConcurrentLinkedQueue<SearchEngine>> engines = new LinkedHashMap<>();
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private Thread acceptor;
+
+    // evaluators by the name clients choose them with; the first is the default.
+    // tablebase, if given, answers end-of-game searches for every evaluator but "ml"
+    public GameServer(int port, Map<String, BoardEvaluator> evaluators, Tablebase tablebase) throws IOException {
+        if (evaluators.isEmpty()) throw new IllegalArgumentException("at least one evaluator is needed");
+        this.evaluators = Collections.unmodifiableMap(new LinkedHashMap<>(evaluators));
+        this.tablebase = tablebase;
+        for (String name : this.evaluators.keySet()) engines.put(name, new ConcurrentLinkedQueue<>());
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    }
+
+    public synchronized void start() {
+        if (acceptor != null) throw new IllegalStateException("already started");
+        acceptor = new Thread(this::acceptLoop, "game-server-accept");
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                return; // closed
+            } catch (IOException e) {
+                System.err.println("Accept failed: " + e.getMessage());
+                continue;
+            }
+            openSessions.incrementAndGet();
+            Thread.ofVirtual().name("session-" + sessionIds.incrementAndGet()).start(() -> {
+                try {
+                    new GameSession(this, socket).run();
+                } finally {
+                    openSessions.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+    public int getOpenSessions() { return openSessions.get(); }
+
+    public Set<String> getEvaluatorNames() { return evaluators.keySet(); }
+
+    String getDefaultEvaluator() {
+
+        return evaluators.keySet().iterator().next();
+    }
+
+    boolean hasEvaluator(String name) {
+
+        return evaluators.containsKey(name);
+    }
+
+    // a fixed-depth search with an engine borrowed from name's pool
+    SearchResult search(String name, Board board, Player humanPlayer, Player aiPlayer, int depth) {
+        ConcurrentLinkedQueue<SearchEngine> pool = engines.get(name);
+        SearchEngine engine = pool.poll();
+        if (engine == null) {
+            // ML scores finished games its own way, so the tablebase would change its answers
+            Tablebase tb = "ml".equals(name) ? null : tablebase;
+            SearchOptions options = new SearchOptions(true, false, false, false, TABLE_BITS);
+            engine = new SearchEngine(evaluators.get(name), SearchLimits.depth(Board.CELLS), options, tb);
+        }
+        try {
+            return engine.search(board, humanPlayer, aiPlayer, depth);
+        } finally {
+            pool.offer(engine);
+        }
+    }
+
+    // stops accepting; sessions already open run until their clients leave
+    @Override
+    public void close() throws IOException {
+
+        serverSocket.close();
+    }
+
+    // the classic heuristic, plus "ml" and "nnue" when their weight files load
+    public static Map<String, BoardEvaluator> loadEvaluators(Path mlWeights, Path nnueWeights) throws IOException {
+        Map<String, BoardEvaluator> evaluators = new LinkedHashMap<>();
+        evaluators.put("classic", EvaluationTable.classic());
+        if (mlWeights != null) {
+            MLModel model = MLModel.load(mlWeights);
+            if (model != null) evaluators.put("ml", EvaluationTable.compile(model));
+            else System.err.println("No usable ML weights in " + mlWeights);
+        }
+        if (nnueWeights != null) {
+            NnueEvaluator net = NnueEvaluator.load(nnueWeights);
+            if (net != null) evaluators.put("nnue", net);
+            else System.err.println("No usable NNUE weights in " + nnueWeights);
+        }
+        return evaluators;
+    }
+
+    // GameServer [port] [ml weights] [nnue weights]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path ml = args.length > 1 ? Path.of(args[1]) : Path.of("tictactoe_model.bin");
+        Path nnue = args.length > 2 ? Path.of(args[2]) : Path.of("tictactoe.nnue");
+
+        Map<String, BoardEvaluator> evaluators = loadEvaluators(ml, nnue);
+        GameServer server = new GameServer(port, evaluators, Tablebase.solve());
+        server.start();
+        System.out.println("Listening on localhost:" + server.getPort() + ", evaluators " + evaluators.keySet());
+    }
+}
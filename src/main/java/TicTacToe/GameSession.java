@@ -0,0 +1,191 @@
+package TicTacToe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// One GameServer connection. Requests and replies are single lines; a reply
+// starts with OK or with ERR and a reason. Cells are numbered 0-8 row by row.
+//
+//   NEW <X|O> [depth] [evaluator]  new game, the client playing X or O
+//                                  -> OK <board> <state>
+//   MOVE <cell>                    the client's move -> OK <board> <state>
+//   AI-MOVE                        the server's move -> OK <cell> <score> <board> <state>
+//   ANALYZE [depth]                best move for the side to move, not played
+//                                  -> OK <cell> <score> <nodes> <cell>:<score> ...
+//   QUIT                           -> OK, then the server hangs up
+//
+// <board> is nine of X, O and '.'; <state> is the side to move, or X-WINS,
+// O-WINS or DRAW. Scores are for the client: positive is good for it.
+class GameSession implements Runnable {
+
+    // requests are short; a longer line is rejected unparsed and the connection
+    // closed, since the rest of it is never read
+    static final int MAX_LINE = 256;
+
+    private final GameServer server;
+    private final Socket socket;
+
+    private Board board;
+    private Player client;
+    private Player toMove;
+    private int depth;
+    private String evaluator;
+    private boolean closing;
+
+    GameSession(GameServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            StringBuilder buf = new StringBuilder(MAX_LINE + 1);
+            String line;
+            while (!closing && (line = readLine(in, buf)) != null) {
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away; nothing to clean up beyond the socket
+        }
+    }
+
+    // the next line without its \n or \r\n, or null at the end of the stream.
+    // Stops reading after MAX_LINE + 1 chars, so a client that never sends a
+    // newline cannot make the session buffer without limit
+    static String readLine(Reader in, StringBuilder buf) throws IOException {
+        buf.setLength(0);
+        int c = in.read();
+        if (c == -1) return null;
+        while (c != -1 && c != '\n') {
+            buf.append((char) c);
+            if (buf.length() > MAX_LINE) break;
+            c = in.read();
+        }
+        int end = buf.length();
+        if (end > 0 && end <= MAX_LINE && buf.charAt(end - 1) == '\r') buf.setLength(end - 1);
+        return buf.toString();
+    }
+
+    String handle(String line) {
+        if (line.length() > MAX_LINE) {
+            closing = true;
+            return "ERR line too long";
+        }
+        String[] parts = line.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase(Locale.ROOT)) {
+                case "NEW": return newGame(parts);
+                case "MOVE": return move(parts);
+                case "AI-MOVE": return aiMove();
+                case "ANALYZE": return analyze(parts);
+                case "QUIT":
+                    closing = true;
+                    return "OK";
+                default: return "ERR unknown command " + parts[0];
+            }
+        } catch (NumberFormatException e) {
+            return "ERR not a number: " + e.getMessage();
+        }
+    }
+
+    private String newGame(String[] parts) {
+        if (parts.length < 2) return "ERR usage: NEW <X|O> [depth] [evaluator]";
+        String side = parts[1].toUpperCase(Locale.ROOT);
+        if (!side.equals("X") && !side.equals("O")) return "ERR side must be X or O";
+        int d = parts.length > 2 ? Integer.parseInt(parts[2]) : Board.CELLS;
+        if (d < 1 || d > Board.CELLS) return "ERR depth must be 1-" + Board.CELLS;
+        String name = parts.length > 3 ? parts[3].toLowerCase(Locale.ROOT) : server.getDefaultEvaluator();
+        if (!server.hasEvaluator(name)) return "ERR no evaluator " + name + ", have " + server.getEvaluatorNames();
+
+        board = new Board();
+        client = Player.valueOf(side);
+        toMove = Player.X;
+        depth = d;
+        evaluator = name;
+        return "OK " + boardString() + " " + state();
+    }
+
+    private String move(String[] parts) {
+        String error = checkPlaying(client);
+        if (error != null) return error;
+        if (parts.length < 2) return "ERR usage: MOVE <cell>";
+        int cell = Integer.parseInt(parts[1]);
+        if (cell < 0 || cell >= Board.CELLS) return "ERR cell must be 0-" + (Board.CELLS - 1);
+        if ((board.getEmptyMask() & (1 << cell)) == 0) return "ERR cell " + cell + " is taken";
+
+        play(cell);
+        return "OK " + boardString() + " " + state();
+    }
+
+    private String aiMove() {
+        String error = checkPlaying(client.opposite());
+        if (error != null) return error;
+
+        Move best = server.search(evaluator, board, client, client.opposite(), depth).getBestMove();
+        int cell = best.getRow() * Board.SIZE + best.getCol();
+        play(cell);
+        return "OK " + cell + " " + best.getScore() + " " + boardString() + " " + state();
+    }
+
+    private String analyze(String[] parts) {
+        String error = checkPlaying(null);
+        if (error != null) return error;
+        int d = parts.length > 1 ? Integer.parseInt(parts[1]) : depth;
+        if (d < 1 || d > Board.CELLS) return "ERR depth must be 1-" + Board.CELLS;
+
+        // the side to move searches as the AI; its scores are for the other side
+        SearchResult result = server.search(evaluator, board, toMove.opposite(), toMove, d);
+        int sign = toMove == client ? -1 : 1;
+        Move best = result.getBestMove();
+        StringBuilder sb = new StringBuilder("OK ");
+        sb.append(best.getRow() * Board.SIZE + best.getCol()).append(' ')
+                .append(sign * best.getScore()).append(' ')
+                .append(result.getNodes());
+        for (Move m : result.getRootMoves()) {
+            sb.append(' ').append(m.getRow() * Board.SIZE + m.getCol()).append(':').append(sign * m.getScore());
+        }
+        return sb.toString();
+    }
+
+    // null when a game is on and, unless side is null, it is side's turn
+    private String checkPlaying(Player side) {
+        if (board == null) return "ERR no game, send NEW first";
+        if (board.isTerminal()) return "ERR game is over";
+        if (side != null && toMove != side) return "ERR " + toMove + " is to move";
+        return null;
+    }
+
+    private void play(int cell) {
+        board.makeMove(cell, toMove);
+        toMove = toMove.opposite();
+    }
+
+    private String state() {
+        Player winner = board.getWinner();
+        if (winner != Player.EMPTY) return winner + "-WINS";
+        if (board.isFull()) return "DRAW";
+        return toMove.toString();
+    }
+
+    private String boardString() {
+        char[] cells = new char[Board.CELLS];
+        for (int i = 0; i < Board.CELLS; i++) {
+            int bit = 1 << i;
+            cells[i] = (board.getXMask() & bit) != 0 ? 'X' : (board.getOMask() & bit) != 0 ? 'O' : '.';
+        }
+        return new String(cells);
+    }
+}
@@ -0,0 +1,83 @@
+package TicTacToe;
+
+// FeatureExtractor's features for a board that changes one cell at a time.
+// add/remove adjust the counts and the almost-win totals from the lines
+// through the changed cell instead of rescanning the board.
+public class IncrementalFeatures {
+
+    // for each cell, the indexes into Board.WIN_MASKS of the lines through it
+    private static final int[][] LINE_IDS = buildLineIds();
+
+    private final int[] lineX = new int[Board.WIN_MASKS.length];
+    private final int[] lineO = new int[Board.WIN_MASKS.length];
+    private final int[] values = new int[FeatureExtractor.COUNT];
+
+    // the features of an empty board until reset says otherwise
+    public IncrementalFeatures() {
+    }
+
+    private static int[][] buildLineIds() {
+        int[][] ids = new int[Board.CELLS][];
+        for (int i = 0; i < Board.CELLS; i++) {
+            ids[i] = new int[Board.LINES_THROUGH[i].length];
+            int n = 0;
+            for (int l = 0; l < Board.WIN_MASKS.length; l++) {
+                if ((Board.WIN_MASKS[l] & (1 << i)) != 0) ids[i][n++] = l;
+            }
+        }
+        return ids;
+    }
+
+    public void reset(Board board) {
+        int x = board.getXMask();
+        int o = board.getOMask();
+        for (int l = 0; l < Board.WIN_MASKS.length; l++) {
+            lineX[l] = Integer.bitCount(x & Board.WIN_MASKS[l]);
+            lineO[l] = Integer.bitCount(o & Board.WIN_MASKS[l]);
+        }
+        FeatureExtractor.extract(x, o, values);
+    }
+
+    // the live feature values; valid until the next add/remove/reset
+    public int[] values() {
+
+        return values;
+    }
+
+    public void add(int index, Player p) {
+
+        update(index, p, 1);
+    }
+
+    public void remove(int index, Player p) {
+
+        update(index, p, -1);
+    }
+
+    private void update(int index, Player p, int delta) {
+        if (p == Player.EMPTY) return;
+        int b = 1 << index;
+
+        if (p == Player.X) {
+            values[FeatureExtractor.X_COUNT] += delta;
+            if ((b & FeatureExtractor.CENTER_BIT) != 0) values[FeatureExtractor.X_CENTER] += delta;
+            if ((b & FeatureExtractor.CORNER_MASK) != 0) values[FeatureExtractor.X_CORNERS] += delta;
+        } else {
+            values[FeatureExtractor.O_COUNT] += delta;
+        }
+
+        for (int l : LINE_IDS[index]) {
+            int xr = lineX[l], or = lineO[l];
+            values[FeatureExtractor.X_ALMOST] -= (xr == 2 && or == 0) ? 1 : 0;
+            values[FeatureExtractor.O_ALMOST] -= (or == 2 && xr == 0) ? 1 : 0;
+
+            if (p == Player.X) xr += delta;
+            else or += delta;
+            lineX[l] = xr;
+            lineO[l] = or;
+
+            values[FeatureExtractor.X_ALMOST] += (xr == 2 && or == 0) ? 1 : 0;
+            values[FeatureExtractor.O_ALMOST] += (or == 2 && xr == 0) ? 1 : 0;
+        }
+    }
+}
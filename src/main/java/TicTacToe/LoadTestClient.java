@@ -0,0 +1,221 @@
+package TicTacToe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for GameServer: opens a number of sessions at once, each on a
+// virtual thread, and has every one play random moves against AI-MOVE for a
+// fixed time. Reports how long the server took to answer MOVE and AI-MOVE at
+// the 50th and 99th percentile, and moves per second across all sessions.
+public class LoadTestClient {
+
+    private final int port;
+    private final int depth;
+    private final String evaluator;
+
+    public LoadTestClient(int port, int depth, String evaluator) {
+        this.port = port;
+        this.depth = depth;
+        this.evaluator = evaluator;
+    }
+
+    public static final class Report {
+        final int sessions;
+        final int failed;
+        final long moves;
+        final double seconds;
+        final long[] moveNanos;
+        final long[] aiMoveNanos;
+
+        Report(int sessions, int failed, long moves, double seconds, long[] moveNanos, long[] aiMoveNanos) {
+            this.sessions = sessions;
+            this.failed = failed;
+            this.moves = moves;
+            this.seconds = seconds;
+            this.moveNanos = moveNanos;
+            this.aiMoveNanos = aiMoveNanos;
+        }
+
+        public double getMovesPerSecond() {
+
+            return moves / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d sessions (%d failed): %.0f moves/s, MOVE p50 %.2f ms p99 %.2f ms, AI-MOVE p50 %.2f ms p99 %.2f ms",
+                    sessions, failed, getMovesPerSecond(),
+                    percentile(moveNanos, 50) / 1e6, percentile(moveNanos, 99) / 1e6,
+                    percentile(aiMoveNanos, 50) / 1e6, percentile(aiMoveNanos, 99) / 1e6);
+        }
+    }
+
+    // sorted samples; nearest rank
+    static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // latencies of one session, grown as needed
+    private static final class Samples {
+        long[] values = new long[256];
+        int count;
+
+        void add(long v) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = v;
+        }
+    }
+
+    // connects every session first, then lets them all play for seconds
+    public Report run(int sessions, double seconds) throws InterruptedException {
+        Samples[] moveSamples = new Samples[sessions];
+        Samples[] aiSamples = new Samples[sessions];
+        AtomicLong moves = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] window = new long[2];
+        long start;
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < sessions; s++) {
+                Samples moveLatency = moveSamples[s] = new Samples();
+                Samples aiLatency = aiSamples[s] = new Samples();
+                long seed = s;
+                clients.execute(() -> {
+                    boolean ready = false;
+                    try (Socket socket = connect()) {
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+                        connected.countDown();
+                        ready = true;
+                        go.await();
+                        play(in, out, new Random(seed), window, moveLatency, aiLatency, moves);
+                        request(in, out, "QUIT");
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (!ready) connected.countDown();
+                    }
+                });
+            }
+
+            connected.await();
+            start = System.nanoTime();
+            window[0] = start;
+            window[1] = start + (long) (seconds * 1e9);
+            go.countDown();
+        }
+
+        // until the last session finished its request in flight
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new Report(sessions, (int) failed.get(), moves.get(), elapsed, merge(moveSamples), merge(aiSamples));
+    }
+
+    private Socket connect() throws IOException, InterruptedException {
+        // the accept backlog can overflow while thousands connect at once
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                socket.setTcpNoDelay(true);
+                return socket;
+            } catch (ConnectException e) {
+                if (attempt == 20) throw e;
+                Thread.sleep(50L * (attempt + 1));
+            }
+        }
+    }
+
+    // whole games, the client on a random side, until the window closes
+    private void play(BufferedReader in, BufferedWriter out, Random rnd, long[] window,
+                      Samples moveLatency, Samples aiLatency, AtomicLong moves) throws IOException {
+        while (System.nanoTime() < window[1]) {
+            String side = rnd.nextBoolean() ? "X" : "O";
+            String[] reply = request(in, out, "NEW " + side + " " + depth + " " + evaluator).split(" ");
+            String board = reply[1];
+            String state = reply[2];
+
+            while (state.length() == 1 && System.nanoTime() < window[1]) {
+                long t = System.nanoTime();
+                if (state.equals(side)) {
+                    int cell = randomEmpty(board, rnd);
+                    reply = request(in, out, "MOVE " + cell).split(" ");
+                    moveLatency.add(System.nanoTime() - t);
+                    board = reply[1];
+                    state = reply[2];
+                } else {
+                    reply = request(in, out, "AI-MOVE").split(" ");
+                    aiLatency.add(System.nanoTime() - t);
+                    board = reply[3];
+                    state = reply[4];
+                }
+                moves.incrementAndGet();
+            }
+        }
+    }
+
+    private static String request(BufferedReader in, BufferedWriter out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) throw new IOException("server closed the connection");
+        if (!reply.startsWith("OK")) throw new IOException("'" + line + "' failed: " + reply);
+        return reply;
+    }
+
+    private static int randomEmpty(String board, Random rnd) {
+        int cell;
+        do {
+            cell = rnd.nextInt(Board.CELLS);
+        } while (board.charAt(cell) != '.');
+        return cell;
+    }
+
+    private static long[] merge(Samples[] samples) {
+        int total = 0;
+        for (Samples s : samples) total += s.count;
+        long[] all = new long[total];
+        int at = 0;
+        for (Samples s : samples) {
+            System.arraycopy(s.values, 0, all, at, s.count);
+            at += s.count;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    // LoadTestClient [port] [seconds] [depth] [evaluator] [sessions...]; 1000 and 10000 sessions by default
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String evaluator = args.length > 3 ? args[3] : "classic";
+        int[] sessionCounts = args.length > 4
+                ? Arrays.stream(args, 4, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1000, 10000};
+
+        LoadTestClient client = new LoadTestClient(port, depth, evaluator);
+        for (int sessions : sessionCounts) {
+            System.out.println(client.run(sessions, seconds));
+        }
+    }
+}
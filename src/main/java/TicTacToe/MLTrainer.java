@@ -0,0 +1,162 @@
+package TicTacToe;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Mini-batch gradient descent for MLModel's flat parameter array. Each batch
+// is cut into fixed-size shards whose gradients are computed in parallel into
+// their own buffers and then summed in shard order, so the result does not
+// depend on the number of cores or on thread scheduling.
+public class MLTrainer {
+
+    private static final int INPUT_SIZE = MLModel.INPUT_SIZE;
+    private static final int HIDDEN_SIZE = MLModel.HIDDEN_SIZE;
+    private static final int W1 = MLModel.W1;
+    private static final int B1 = MLModel.B1;
+    private static final int W2 = MLModel.W2;
+    private static final int B2 = MLModel.B2;
+    private static final int PARAMS = MLModel.PARAM_COUNT;
+
+    // samples per shard; smaller shards cost more in scheduling than they save
+    private static final int SHARD_SIZE = 64;
+
+    private final TrainingOptions options;
+
+    public MLTrainer(TrainingOptions options) {
+        this.options = options;
+    }
+
+    // x holds at least n rows of INPUT_SIZE normalised features and y their +-1
+    // labels. Rows [0, trainSize) are trained on; rows [trainSize, n) are held
+    // out for early stopping, after which params holds the weights with the
+    // lowest held-out loss. Rows from n on are never read, so a test split
+    // kept there stays unseen. Returns the number of epochs run.
+    public int train(double[] params, double[] x, double[] y, int n, int trainSize) {
+        int batch = Math.min(options.getBatchSize(), trainSize);
+        int shards = (batch + SHARD_SIZE - 1) / SHARD_SIZE;
+        double[][] grads = new double[shards][PARAMS];
+        double[][] hidden = new double[shards][HIDDEN_SIZE];
+        double[] shardLoss = new double[shards];
+
+        int[] order = new int[trainSize];
+        for (int i = 0; i < trainSize; i++) order[i] = i;
+        Random rnd = new Random(42);
+
+        boolean earlyStop = options.getPatience() > 0 && n > trainSize;
+        double[] best = earlyStop ? params.clone() : null;
+        double bestLoss = earlyStop ? heldOutLoss(params, x, y, trainSize, n, hidden[0]) : 0.0;
+        int sinceBest = 0;
+
+        int epoch = 0;
+        while (epoch < options.getEpochs()) {
+            epoch++;
+            for (int i = trainSize - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+
+            double totalLoss = 0.0;
+            for (int start = 0; start < trainSize; start += batch) {
+                int end = Math.min(start + batch, trainSize);
+                int used = (end - start + SHARD_SIZE - 1) / SHARD_SIZE;
+                int from = start;
+
+                if (used == 1) {
+                    shardLoss[0] = gradient(params, x, y, order, from, end, grads[0], hidden[0]);
+                } else {
+                    IntStream.range(0, used).parallel().forEach(s -> {
+                        int lo = from + s * SHARD_SIZE;
+                        int hi = Math.min(lo + SHARD_SIZE, end);
+                        shardLoss[s] = gradient(params, x, y, order, lo, hi, grads[s], hidden[s]);
+                    });
+                }
+
+                double[] sum = grads[0];
+                totalLoss += shardLoss[0];
+                for (int s = 1; s < used; s++) {
+                    double[] g = grads[s];
+                    for (int p = 0; p < PARAMS; p++) sum[p] += g[p];
+                    totalLoss += shardLoss[s];
+                }
+
+                double step = options.getLearningRate() / (end - start);
+                for (int p = 0; p < PARAMS; p++) params[p] -= step * sum[p];
+            }
+
+            if (epoch % 500 == 0) {
+                System.out.println("Epoch " + epoch + " avg train loss = " + (totalLoss / trainSize));
+            }
+
+            if (earlyStop) {
+                double loss = heldOutLoss(params, x, y, trainSize, n, hidden[0]);
+                if (loss < bestLoss) {
+                    bestLoss = loss;
+                    System.arraycopy(params, 0, best, 0, PARAMS);
+                    sinceBest = 0;
+                } else if (++sinceBest >= options.getPatience()) {
+                    System.out.println("Early stop at epoch " + epoch + ", best held-out loss = " + bestLoss);
+                    break;
+                }
+            }
+        }
+
+        if (earlyStop) System.arraycopy(best, 0, params, 0, PARAMS);
+        return epoch;
+    }
+
+    // sums the squared-error gradient of rows order[from..to) into grad and returns their loss
+    private static double gradient(double[] params, double[] x, double[] y, int[] order, int from, int to,
+                                   double[] grad, double[] hidden) {
+        Arrays.fill(grad, 0.0);
+        double loss = 0.0;
+
+        for (int i = from; i < to; i++) {
+            int row = order[i];
+            int in = row * INPUT_SIZE;
+            double out = forward(params, x, in, hidden);
+
+            double diff = out - y[row];
+            loss += diff * diff;
+            double dZ2 = 2 * diff * (1 - out * out);
+
+            grad[B2] += dZ2;
+            for (int j = 0; j < HIDDEN_SIZE; j++) {
+                double h = hidden[j];
+                grad[W2 + j] += dZ2 * h;
+                double dZj = dZ2 * params[W2 + j] * (1 - h * h);
+                grad[B1 + j] += dZj;
+                int w = W1 + j * INPUT_SIZE;
+                for (int k = 0; k < INPUT_SIZE; k++) {
+                    grad[w + k] += dZj * x[in + k];
+                }
+            }
+        }
+        return loss;
+    }
+
+    private static double forward(double[] params, double[] x, int in, double[] hidden) {
+        double z2 = params[B2];
+        for (int j = 0; j < HIDDEN_SIZE; j++) {
+            double z = params[B1 + j];
+            int w = W1 + j * INPUT_SIZE;
+            for (int k = 0; k < INPUT_SIZE; k++) {
+                z += params[w + k] * x[in + k];
+            }
+            hidden[j] = MLModel.tanh(z);
+            z2 += params[W2 + j] * hidden[j];
+        }
+        return MLModel.tanh(z2);
+    }
+
+    private static double heldOutLoss(double[] params, double[] x, double[] y, int from, int to, double[] hidden) {
+        double loss = 0.0;
+        for (int row = from; row < to; row++) {
+            double diff = forward(params, x, row * INPUT_SIZE, hidden) - y[row];
+            loss += diff * diff;
+        }
+        return loss / (to - from);
+    }
+}
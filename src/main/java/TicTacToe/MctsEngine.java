@@ -0,0 +1,427 @@
+package TicTacToe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Monte Carlo tree search (UCT): every iteration walks down the tree by upper
+// confidence bound, adds the children of the leaf it reaches and scores one of
+// them with a random playout, optionally mixed with an evaluator's opinion.
+// Strength grows with iterations rather than depth, and any budget, however
+// short, gives a move.
+//
+// Nodes live in preallocated primitive arrays and never move while a search
+// runs. Several threads can grow one tree: each counts its visit on the way
+// down, before the result is known, so the others see that path as a loss for
+// now and spread out (virtual loss). Between searches the subtree of the new
+// position is kept and copied to the front of a second pool, so the next move
+// starts from what this one learned.
+public class MctsEngine implements MoveSearcher {
+
+    // about 22 bytes a node in each of the two pools
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    // when the limits have no time or node budget
+    public static final int DEFAULT_ITERATIONS = 20_000;
+
+    // UCB1 with rewards in [0, 1]
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // rewards, for the player who moved into a node
+    private static final int WIN = 2048;
+    private static final int DRAW = WIN / 2;
+
+    // share of a leaf's reward that comes from the prior, when there is one
+    private static final double PRIOR_WEIGHT = 0.5;
+
+    private static final int LEAF = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+
+    private static final int NO_CELL = -1;
+    private static final int CLOCK_CHECK_MASK = 63;
+
+    private static final class NodePool {
+        final byte[] move;
+        final int[] firstChild;
+        final byte[] childCount;
+        // LEAF, EXPANDING or EXPANDED; the volatile write of EXPANDED publishes
+        // the children written before it
+        final AtomicIntegerArray state;
+        final AtomicIntegerArray visits;
+        final AtomicLongArray reward;
+        // may run past capacity once the pool is full
+        final AtomicInteger size = new AtomicInteger();
+
+        NodePool(int capacity) {
+            move = new byte[capacity];
+            firstChild = new int[capacity];
+            childCount = new byte[capacity];
+            state = new AtomicIntegerArray(capacity);
+            visits = new AtomicIntegerArray(capacity);
+            reward = new AtomicLongArray(capacity);
+        }
+
+        int capacity() { return move.length; }
+
+        int used() {
+
+            return Math.min(size.get(), capacity());
+        }
+
+        void init(int n, int cell) {
+            move[n] = (byte) cell;
+            firstChild[n] = 0;
+            childCount[n] = 0;
+            visits.set(n, 0);
+            reward.set(n, 0);
+            state.set(n, LEAF);
+        }
+    }
+
+    private final SearchLimits limits;
+    private final BoardEvaluator prior;
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    private NodePool tree;
+    private NodePool spare;
+    // old pool index of each node while a subtree is copied across
+    private final int[] copyFrom;
+    private final AtomicLong seeds = new AtomicLong();
+
+    // the position the tree's root stands for; rootToMove is null while there is no tree
+    private int rootX;
+    private int rootO;
+    private Player rootToMove;
+
+    public MctsEngine(SearchLimits limits) {
+
+        this(limits, null, 1, DEFAULT_CAPACITY);
+    }
+
+    // prior, if given, scores leaves on the search scale, +-1000 for a certain
+    // result, as MLModel does; threads share the tree, the extra ones run on
+    // the common ForkJoinPool
+    public MctsEngine(SearchLimits limits, BoardEvaluator prior, int threads, int capacity) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        if (capacity < Board.CELLS + 1) throw new IllegalArgumentException("capacity too small: " + capacity);
+        this.limits = limits;
+        this.prior = prior;
+        this.threads = threads;
+        this.pool = ForkJoinPool.commonPool();
+        this.tree = new NodePool(capacity);
+        this.spare = new NodePool(capacity);
+        this.copyFrom = new int[capacity];
+    }
+
+    public SearchLimits getLimits() { return limits; }
+    public int getThreads() { return threads; }
+
+    // nodes in the tree as the last search left it
+    public synchronized int getTreeSize() {
+
+        return rootToMove == null ? 0 : tree.used();
+    }
+
+    @Override
+    public synchronized void newGame() {
+
+        rootToMove = null;
+    }
+
+    // iterations until the limits' node budget or time runs out, the depth limit
+    // does not apply; scores are on the search scale for humanPlayer, like
+    // SearchEngine's, and the best move is the most visited one
+    @Override
+    public synchronized SearchResult search(Board board, Player humanPlayer, Player aiPlayer) {
+        long start = System.nanoTime();
+        if (board.isTerminal()) return new SearchResult(null, List.of(), List.of(), 0, 0, 0);
+
+        if (!reuse(board, aiPlayer)) {
+            tree.size.set(1);
+            tree.init(0, NO_CELL);
+        }
+        rootX = board.getXMask();
+        rootO = board.getOMask();
+        rootToMove = aiPlayer;
+
+        long maxIterations = limits.getMaxNodes() > 0 ? limits.getMaxNodes()
+                : limits.getTimeMillis() > 0 ? Long.MAX_VALUE : DEFAULT_ITERATIONS;
+        long deadline = limits.getTimeMillis() > 0 ? start + limits.getTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        Run run = new Run(tree, rootX, rootO, aiPlayer, maxIterations, deadline);
+
+        List<ForkJoinTask<?>> helpers = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            long seed = seeds.incrementAndGet();
+            helpers.add(pool.submit(() -> iterate(run, seed)));
+        }
+        iterate(run, seeds.incrementAndGet());
+        for (ForkJoinTask<?> helper : helpers) helper.join();
+
+        return buildResult(Math.min(run.claimed.get(), maxIterations), System.nanoTime() - start);
+    }
+
+    // one search's shared state; the tree is the only thing workers write
+    private static final class Run {
+        final NodePool tree;
+        final int rootX;
+        final int rootO;
+        final Player rootToMove;
+        final long maxIterations;
+        final long deadline;
+        final AtomicLong claimed = new AtomicLong();
+        volatile boolean timeUp;
+
+        Run(NodePool tree, int rootX, int rootO, Player rootToMove, long maxIterations, long deadline) {
+            this.tree = tree;
+            this.rootX = rootX;
+            this.rootO = rootO;
+            this.rootToMove = rootToMove;
+            this.maxIterations = maxIterations;
+            this.deadline = deadline;
+        }
+    }
+
+    private void iterate(Run run, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] path = new int[Board.CELLS + 1];
+        Board work = prior != null ? new Board() : null;
+        long done = 0;
+        while (!run.timeUp && run.claimed.getAndIncrement() < run.maxIterations) {
+            iteration(run, rnd, path, work);
+            if ((++done & CLOCK_CHECK_MASK) == 0 && System.nanoTime() >= run.deadline) run.timeUp = true;
+        }
+    }
+
+    // select, expand, play out, back up
+    private void iteration(Run run, SplittableRandom rnd, int[] path, Board work) {
+        NodePool t = run.tree;
+        int x = run.rootX;
+        int o = run.rootO;
+        Player toMove = run.rootToMove;
+        int n = 0;
+        int length = 0;
+        path[length++] = n;
+        t.visits.incrementAndGet(n);
+
+        int reward;
+        boolean grown = false;
+        while (true) {
+            // the player who moved into n has just won, or nobody can move
+            int last = toMove == Player.X ? o : x;
+            if (length > 1 && wins(last)) {
+                reward = WIN;
+                break;
+            }
+            if ((x | o) == Board.FULL_MASK) {
+                reward = DRAW;
+                break;
+            }
+            if (t.state.get(n) != EXPANDED) {
+                // one level a visit: the child just added is played out, not expanded
+                if (grown || !expand(t, n, x | o)) {
+                    reward = leafReward(x, o, toMove, rnd, work);
+                    break;
+                }
+                grown = true;
+            }
+
+            n = select(t, n);
+            t.visits.incrementAndGet(n);
+            path[length++] = n;
+            int bit = 1 << t.move[n];
+            if (toMove == Player.X) x |= bit;
+            else o |= bit;
+            toMove = toMove.opposite();
+        }
+
+        // each node scores for the player who moved into it, so the sides alternate
+        for (int i = length - 1; i >= 0; i--) {
+            t.reward.addAndGet(path[i], reward);
+            reward = WIN - reward;
+        }
+    }
+
+    // false when another thread is expanding n or the pool is full
+    private static boolean expand(NodePool t, int n, int occupied) {
+        if (t.size.get() >= t.capacity()) return false;
+        if (!t.state.compareAndSet(n, LEAF, EXPANDING)) return t.state.get(n) == EXPANDED;
+        int empty = ~occupied & Board.FULL_MASK;
+        int count = Integer.bitCount(empty);
+        int first = t.size.getAndAdd(count);
+        if (first + count > t.capacity()) {
+            t.state.set(n, LEAF);
+            return false;
+        }
+        for (int c = first; empty != 0; c++, empty &= empty - 1) {
+            t.init(c, Integer.numberOfTrailingZeros(empty));
+        }
+        t.firstChild[n] = first;
+        t.childCount[n] = (byte) count;
+        t.state.set(n, EXPANDED);
+        return true;
+    }
+
+    // unvisited children first, in board order, then the highest upper bound
+    private static int select(NodePool t, int n) {
+        int first = t.firstChild[n];
+        int end = first + t.childCount[n];
+        double logVisits = Math.log(t.visits.get(n));
+        int best = first;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (int c = first; c < end; c++) {
+            int v = t.visits.get(c);
+            if (v == 0) return c;
+            double bound = t.reward.get(c) / (double) (WIN * (long) v) + EXPLORATION * Math.sqrt(logVisits / v);
+            if (bound > bestBound) {
+                bestBound = bound;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // for the player who moved into the position, with toMove to play
+    private int leafReward(int x, int o, Player toMove, SplittableRandom rnd, Board work) {
+        int reward = playout(x, o, toMove, rnd);
+        if (prior == null) return reward;
+
+        for (int i = 0; i < Board.CELLS; i++) {
+            int bit = 1 << i;
+            if ((x & bit) != 0) work.makeMove(i, Player.X);
+            else if ((o & bit) != 0) work.makeMove(i, Player.O);
+        }
+        int score = prior.evaluate(work, toMove.opposite());
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (((x | o) & (1 << i)) != 0) work.unmakeMove(i);
+        }
+        double value = Math.max(-1.0, Math.min(1.0, score / 1000.0));
+        int priorReward = (int) Math.round((value + 1) * DRAW);
+        return (int) Math.round(PRIOR_WEIGHT * priorReward + (1 - PRIOR_WEIGHT) * reward);
+    }
+
+    // random moves to the end of the game, straight on the bitboards
+    private static int playout(int x, int o, Player toMove, SplittableRandom rnd) {
+        int mover = toMove == Player.X ? x : o;
+        int other = toMove == Player.X ? o : x;
+        // the side toMove plays on even plies
+        for (int ply = 0; ; ply++) {
+            int empty = ~(mover | other) & Board.FULL_MASK;
+            if (empty == 0) return DRAW;
+            for (int k = rnd.nextInt(Integer.bitCount(empty)); k > 0; k--) empty &= empty - 1;
+            mover |= Integer.lowestOneBit(empty);
+            if (wins(mover)) return (ply & 1) == 0 ? 0 : WIN;
+            int swap = mover;
+            mover = other;
+            other = swap;
+        }
+    }
+
+    private static boolean wins(int mask) {
+        for (int line : Board.WIN_MASKS) {
+            if ((mask & line) == line) return true;
+        }
+        return false;
+    }
+
+    // Finds the node of board in the last search's tree, reached by the moves
+    // played since, and copies its subtree into the spare pool, which becomes
+    // the tree. False, leaving the tree alone, when there is none.
+    private boolean reuse(Board board, Player aiPlayer) {
+        if (rootToMove == null) return false;
+        int x = board.getXMask();
+        int o = board.getOMask();
+        if ((rootX & ~x) != 0 || (rootO & ~o) != 0) return false;
+
+        NodePool t = tree;
+        int n = 0;
+        int cx = rootX;
+        int co = rootO;
+        Player toMove = rootToMove;
+        while (cx != x || co != o) {
+            if (t.state.get(n) != EXPANDED) return false;
+            int added = toMove == Player.X ? x & ~cx : o & ~co;
+            int next = -1;
+            for (int c = t.firstChild[n]; c < t.firstChild[n] + t.childCount[n]; c++) {
+                if ((added & (1 << t.move[c])) != 0) {
+                    next = c;
+                    break;
+                }
+            }
+            if (next < 0) return false;
+            n = next;
+            if (toMove == Player.X) cx |= 1 << t.move[n];
+            else co |= 1 << t.move[n];
+            toMove = toMove.opposite();
+        }
+        if (toMove != aiPlayer) return false;
+
+        // breadth first, so each node's children stay next to each other
+        NodePool to = spare;
+        copyFrom[0] = n;
+        int size = 1;
+        for (int d = 0; d < size; d++) {
+            int s = copyFrom[d];
+            to.move[d] = d == 0 ? NO_CELL : t.move[s];
+            to.visits.set(d, t.visits.get(s));
+            to.reward.set(d, t.reward.get(s));
+            int count = t.state.get(s) == EXPANDED ? t.childCount[s] : 0;
+            for (int i = 0; i < count; i++) copyFrom[size + i] = t.firstChild[s] + i;
+            to.firstChild[d] = count > 0 ? size : 0;
+            to.childCount[d] = (byte) count;
+            to.state.set(d, count > 0 ? EXPANDED : LEAF);
+            size += count;
+        }
+        to.size.set(size);
+        spare = t;
+        tree = to;
+        return true;
+    }
+
+    private SearchResult buildResult(long iterations, long elapsedNanos) {
+        NodePool t = tree;
+        List<Move> rootMoves = new ArrayList<>();
+        Move bestMove = null;
+        int bestVisits = -1;
+        if (t.state.get(0) == EXPANDED) {
+            for (int c = t.firstChild[0]; c < t.firstChild[0] + t.childCount[0]; c++) {
+                Move move = new Move(t.move[c] / Board.SIZE, t.move[c] % Board.SIZE);
+                move.setScore(score(t, c));
+                rootMoves.add(move);
+                if (t.visits.get(c) > bestVisits) {
+                    bestVisits = t.visits.get(c);
+                    bestMove = move;
+                }
+            }
+        }
+
+        // the most visited line
+        List<Move> pv = new ArrayList<>();
+        for (int n = 0; t.state.get(n) == EXPANDED; ) {
+            int best = -1;
+            for (int c = t.firstChild[n]; c < t.firstChild[n] + t.childCount[n]; c++) {
+                if (t.visits.get(c) > 0 && (best < 0 || t.visits.get(c) > t.visits.get(best))) best = c;
+            }
+            if (best < 0) break;
+            pv.add(new Move(t.move[best] / Board.SIZE, t.move[best] % Board.SIZE));
+            n = best;
+        }
+        return new SearchResult(bestMove, rootMoves, pv, pv.size(), iterations, elapsedNanos);
+    }
+
+    // c's average reward, for the AI that moved into it, as a search score for
+    // the human: -1000 for a sure AI win up to 1000 for a sure loss
+    private static int score(NodePool t, int c) {
+        int v = t.visits.get(c);
+        if (v == 0) return 0;
+        double value = t.reward.get(c) / (double) (WIN * (long) v);
+        return (int) Math.round((1 - 2 * value) * 1000);
+    }
+}
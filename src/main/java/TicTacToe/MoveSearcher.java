@@ -0,0 +1,16 @@
+package TicTacToe;
+
+// A search that picks aiPlayer's move under its own limits: SearchEngine's
+// alpha-beta or MctsEngine's tree search.
+public interface MoveSearcher {
+
+    SearchResult search(Board board, Player humanPlayer, Player aiPlayer);
+
+    default Move findBestMove(Board board, Player humanPlayer, Player aiPlayer) {
+
+        return search(board, humanPlayer, aiPlayer).getBestMove();
+    }
+
+    // forgets what earlier searches left behind, e.g. before a new game
+    void newGame();
+}
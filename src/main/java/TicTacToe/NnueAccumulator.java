@@ -0,0 +1,39 @@
+package TicTacToe;
+
+// The first layer of an NnueEvaluator for one board, kept in step with it:
+// each add or remove costs one row of HIDDEN int16 additions.
+public class NnueAccumulator {
+
+    private final NnueEvaluator net;
+    private final short[] acc = new short[NnueEvaluator.HIDDEN];
+
+    NnueAccumulator(NnueEvaluator net) {
+        this.net = net;
+    }
+
+    public NnueEvaluator getNet() {
+
+        return net;
+    }
+
+    public void reset(Board board) {
+        System.arraycopy(net.b1, 0, acc, 0, NnueEvaluator.HIDDEN);
+        for (int m = board.getXMask(); m != 0; m &= m - 1) add(Integer.numberOfTrailingZeros(m), Player.X);
+        for (int m = board.getOMask(); m != 0; m &= m - 1) add(Integer.numberOfTrailingZeros(m), Player.O);
+    }
+
+    public void add(int index, Player p) {
+        if (p == Player.EMPTY) return;
+        net.add(acc, NnueEvaluator.input(index, p));
+    }
+
+    public void remove(int index, Player p) {
+        if (p == Player.EMPTY) return;
+        net.remove(acc, NnueEvaluator.input(index, p));
+    }
+
+    short[] values() {
+
+        return acc;
+    }
+}
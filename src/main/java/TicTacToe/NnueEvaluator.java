@@ -0,0 +1,169 @@
+package TicTacToe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// A small fixed-point network over the raw cells, in the style of chess NNUE.
+// Input f is "X on cell f" for f < CELLS and "O on cell f - CELLS" above, so a
+// move switches on exactly one input and the first layer can be kept as an
+// int16 accumulator updated per move (see NnueAccumulator). The hidden layer is
+// clipped to [0, QA] and feeds int8 output weights; the output is X's
+// advantage, scaled to +-999 so a finished game (+-1000) always outranks it.
+public class NnueEvaluator implements BoardEvaluator {
+
+    public static final int INPUTS = 2 * Board.CELLS;
+    public static final int HIDDEN = 32;
+
+    // fixed-point scales: first layer and activations by QA, output weights by QB
+    static final int QA = 127;
+    static final int QB = 64;
+
+    private static final int MAX_SCORE = 999;
+
+    // weights file: magic, version, layer sizes, then w1, b1, w2 and b2
+    private static final int FILE_MAGIC = 0x54544E4E; // "TTNN"
+    private static final short FILE_VERSION = 1;
+
+    // per-thread accumulator for evaluate(Board), so it allocates nothing
+    private static final ThreadLocal<short[]> SCRATCH = ThreadLocal.withInitial(() -> new short[HIDDEN]);
+
+    // w1 is input-major: the HIDDEN weights of input f start at f * HIDDEN
+    final short[] w1;
+    final short[] b1;
+    private final byte[] w2;
+    private final int b2;
+
+    NnueEvaluator(short[] w1, short[] b1, byte[] w2, int b2) {
+        int worst = worstAccumulator(w1, b1);
+        if (worst > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("first-layer weights can reach " + worst + ", past the int16 accumulator");
+        }
+        this.w1 = w1;
+        this.b1 = b1;
+        this.w2 = w2;
+        this.b2 = b2;
+    }
+
+    // the largest magnitude any accumulator value can take: its bias plus, for
+    // every cell, the larger of the X and O weight
+    static int worstAccumulator(short[] w1, short[] b1) {
+        int worst = 0;
+        for (int h = 0; h < HIDDEN; h++) {
+            int sum = Math.abs(b1[h]);
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                sum += Math.max(Math.abs(w1[input(cell, Player.X) * HIDDEN + h]),
+                        Math.abs(w1[input(cell, Player.O) * HIDDEN + h]));
+            }
+            worst = Math.max(worst, sum);
+        }
+        return worst;
+    }
+
+    static int input(int index, Player p) {
+
+        return p == Player.X ? index : Board.CELLS + index;
+    }
+
+    public NnueAccumulator newAccumulator() {
+
+        return new NnueAccumulator(this);
+    }
+
+    @Override
+    public int evaluate(Board board, Player humanPlayer) {
+        int terminal = terminalScore(board, humanPlayer);
+        if (terminal != Integer.MIN_VALUE) return terminal;
+
+        short[] acc = SCRATCH.get();
+        System.arraycopy(b1, 0, acc, 0, HIDDEN);
+        for (int m = board.getXMask(); m != 0; m &= m - 1) add(acc, input(Integer.numberOfTrailingZeros(m), Player.X));
+        for (int m = board.getOMask(); m != 0; m &= m - 1) add(acc, input(Integer.numberOfTrailingZeros(m), Player.O));
+        return forHuman(output(acc), humanPlayer);
+    }
+
+    // the same score from an accumulator that is in step with board
+    public int evaluate(NnueAccumulator accumulator, Board board, Player humanPlayer) {
+        int terminal = terminalScore(board, humanPlayer);
+        if (terminal != Integer.MIN_VALUE) return terminal;
+        return forHuman(output(accumulator.values()), humanPlayer);
+    }
+
+    void add(short[] acc, int input) {
+        int base = input * HIDDEN;
+        for (int h = 0; h < HIDDEN; h++) acc[h] += w1[base + h];
+    }
+
+    void remove(short[] acc, int input) {
+        int base = input * HIDDEN;
+        for (int h = 0; h < HIDDEN; h++) acc[h] -= w1[base + h];
+    }
+
+    // X's advantage on the search scale
+    private int output(short[] acc) {
+        int sum = b2;
+        for (int h = 0; h < HIDDEN; h++) {
+            int a = Math.max(0, Math.min(QA, acc[h]));
+            sum += a * w2[h];
+        }
+        int score = (int) ((long) sum * 1000 / (QA * QB));
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    private static int forHuman(int scoreForX, Player humanPlayer) {
+        if (humanPlayer == Player.X) return scoreForX;
+        if (humanPlayer == Player.O) return -scoreForX;
+        return 0;
+    }
+
+    // same values as EvaluationClassic for finished games, MIN_VALUE otherwise
+    private static int terminalScore(Board board, Player humanPlayer) {
+        Player winner = board.getWinner();
+        if (winner != Player.EMPTY) return winner == humanPlayer ? 1000 : -1000;
+        if (board.isFull()) return 0;
+        return Integer.MIN_VALUE;
+    }
+
+    public void save(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeShort(FILE_VERSION);
+            out.writeShort(INPUTS);
+            out.writeShort(HIDDEN);
+            for (short v : w1) out.writeShort(v);
+            for (short v : b1) out.writeShort(v);
+            out.write(w2);
+            out.writeInt(b2);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null when the file is missing, from another version or network shape, or
+    // holds weights that could overflow the accumulator
+    public static NnueEvaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC) return null;
+            if (in.readShort() != FILE_VERSION) return null;
+            if (in.readShort() != INPUTS || in.readShort() != HIDDEN) return null;
+
+            short[] w1 = new short[INPUTS * HIDDEN];
+            short[] b1 = new short[HIDDEN];
+            byte[] w2 = new byte[HIDDEN];
+            for (int i = 0; i < w1.length; i++) w1[i] = in.readShort();
+            for (int i = 0; i < HIDDEN; i++) b1[i] = in.readShort();
+            in.readFully(w2);
+            int b2 = in.readInt();
+            if (worstAccumulator(w1, b1) > Short.MAX_VALUE) return null;
+            return new NnueEvaluator(w1, b1, w2, b2);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
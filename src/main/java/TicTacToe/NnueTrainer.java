@@ -0,0 +1,232 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+// Trains the NnueEvaluator network in floating point with mini-batch gradient
+// descent, then exports it to the fixed-point weights the evaluator runs on.
+// Weights are kept inside the range their quantized form can hold, so nothing
+// is clipped on export and the int16 accumulator cannot overflow.
+public class NnueTrainer {
+
+    private static final int INPUTS = NnueEvaluator.INPUTS;
+    private static final int HIDDEN = NnueEvaluator.HIDDEN;
+    private static final int QA = NnueEvaluator.QA;
+    private static final int QB = NnueEvaluator.QB;
+
+    // an accumulator sums a bias and at most CELLS inputs; the share of each is
+    // a whole number of QA steps, so rounding on export cannot push it past
+    static final double W1_LIMIT = (double) (Short.MAX_VALUE / (Board.CELLS + 1)) / QA;
+    private static final double W2_LIMIT = (double) Byte.MAX_VALUE / QB;
+
+    private final TrainingOptions options;
+
+    private final double[] w1 = new double[INPUTS * HIDDEN];
+    private final double[] b1 = new double[HIDDEN];
+    private final double[] w2 = new double[HIDDEN];
+    private double b2;
+
+    public NnueTrainer(TrainingOptions options) {
+        this.options = options;
+        Random rnd = new Random(42);
+        for (int i = 0; i < w1.length; i++) w1[i] = (rnd.nextDouble() - 0.5) * 0.5;
+        for (int h = 0; h < HIDDEN; h++) {
+            b1[h] = 0.1;
+            w2[h] = (rnd.nextDouble() - 0.5) * 0.5;
+        }
+    }
+
+    // every reachable unfinished position, labelled with its solved value for X
+    // (1 win, 0 draw, -1 loss); a tenth is held out when early stopping is on
+    public static NnueEvaluator trainFromTablebase(Tablebase tb, TrainingOptions options) {
+        int[] xMasks = new int[Board.STATES];
+        int[] oMasks = new int[Board.STATES];
+        double[] targets = new double[Board.STATES];
+        int n = 0;
+
+        for (int x = 0; x <= Board.FULL_MASK; x++) {
+            for (int o = 0; o <= Board.FULL_MASK; o++) {
+                if ((x & o) != 0) continue;
+                Board board = Board.fromMasks(x, o);
+                if (board.isTerminal()) continue;
+                Player toMove = Integer.bitCount(x) == Integer.bitCount(o) ? Player.X : Player.O;
+                int value = Tablebase.valueOf(tb.probe(board, toMove));
+                if (value == Tablebase.UNKNOWN) continue;
+
+                double forMover = value == Tablebase.WIN ? 1.0 : value == Tablebase.LOSS ? -1.0 : 0.0;
+                xMasks[n] = x;
+                oMasks[n] = o;
+                targets[n] = toMove == Player.X ? forMover : -forMover;
+                n++;
+            }
+        }
+
+        Random rnd = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = xMasks[i]; xMasks[i] = xMasks[j]; xMasks[j] = t;
+            t = oMasks[i]; oMasks[i] = oMasks[j]; oMasks[j] = t;
+            double d = targets[i]; targets[i] = targets[j]; targets[j] = d;
+        }
+
+        int trainSize = options.getPatience() > 0 ? n - n / 10 : n;
+        NnueTrainer trainer = new NnueTrainer(options);
+        trainer.train(xMasks, oMasks, targets, n, trainSize);
+        return trainer.export();
+    }
+
+    // rows [0, trainSize) are trained on, the rest held out for early stopping;
+    // targets are X's advantage in [-1, 1]. Returns the number of epochs run.
+    public int train(int[] xMasks, int[] oMasks, double[] targets, int n, int trainSize) {
+        int batch = Math.min(options.getBatchSize(), trainSize);
+        double[] g1 = new double[w1.length];
+        double[] gb1 = new double[HIDDEN];
+        double[] g2 = new double[HIDDEN];
+        double[] z = new double[HIDDEN];
+        int[] active = new int[Board.CELLS];
+
+        int[] order = new int[trainSize];
+        for (int i = 0; i < trainSize; i++) order[i] = i;
+        Random rnd = new Random(42);
+
+        boolean earlyStop = options.getPatience() > 0 && n > trainSize;
+        double[] best = earlyStop ? snapshot() : null;
+        double bestLoss = earlyStop ? heldOutLoss(xMasks, oMasks, targets, trainSize, n, z, active) : 0.0;
+        int sinceBest = 0;
+
+        int epoch = 0;
+        while (epoch < options.getEpochs()) {
+            epoch++;
+            for (int i = trainSize - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+
+            for (int start = 0; start < trainSize; start += batch) {
+                int end = Math.min(start + batch, trainSize);
+                Arrays.fill(g1, 0.0);
+                Arrays.fill(gb1, 0.0);
+                Arrays.fill(g2, 0.0);
+                double gb2 = 0.0;
+
+                for (int i = start; i < end; i++) {
+                    int row = order[i];
+                    int count = activeInputs(xMasks[row], oMasks[row], active);
+                    double out = forward(active, count, z);
+                    double dOut = 2 * (out - targets[row]);
+
+                    gb2 += dOut;
+                    for (int h = 0; h < HIDDEN; h++) {
+                        g2[h] += dOut * Math.max(0.0, Math.min(1.0, z[h]));
+                        // the clipped activation passes no gradient outside (0, 1)
+                        if (z[h] <= 0.0 || z[h] >= 1.0) continue;
+                        double dz = dOut * w2[h];
+                        gb1[h] += dz;
+                        for (int c = 0; c < count; c++) g1[active[c] * HIDDEN + h] += dz;
+                    }
+                }
+
+                double step = options.getLearningRate() / (end - start);
+                for (int i = 0; i < w1.length; i++) w1[i] = clamp(w1[i] - step * g1[i], W1_LIMIT);
+                for (int h = 0; h < HIDDEN; h++) {
+                    b1[h] = clamp(b1[h] - step * gb1[h], W1_LIMIT);
+                    w2[h] = clamp(w2[h] - step * g2[h], W2_LIMIT);
+                }
+                b2 -= step * gb2;
+            }
+
+            if (earlyStop) {
+                double loss = heldOutLoss(xMasks, oMasks, targets, trainSize, n, z, active);
+                if (loss < bestLoss) {
+                    bestLoss = loss;
+                    best = snapshot();
+                    sinceBest = 0;
+                } else if (++sinceBest >= options.getPatience()) {
+                    System.out.println("Early stop at epoch " + epoch + ", best held-out loss = " + bestLoss);
+                    break;
+                }
+            }
+        }
+
+        if (earlyStop) restore(best);
+        return epoch;
+    }
+
+    // the fixed-point network; its outputs match the float one to within rounding
+    public NnueEvaluator export() {
+        short[] qw1 = new short[w1.length];
+        short[] qb1 = new short[HIDDEN];
+        byte[] qw2 = new byte[HIDDEN];
+        for (int i = 0; i < w1.length; i++) qw1[i] = (short) Math.round(w1[i] * QA);
+        for (int h = 0; h < HIDDEN; h++) {
+            qb1[h] = (short) Math.round(b1[h] * QA);
+            qw2[h] = (byte) Math.round(w2[h] * QB);
+        }
+        int qb2 = (int) Math.round(b2 * QA * QB);
+        return new NnueEvaluator(qw1, qb1, qw2, qb2);
+    }
+
+    private static int activeInputs(int xMask, int oMask, int[] active) {
+        int count = 0;
+        for (int m = xMask; m != 0; m &= m - 1) active[count++] = NnueEvaluator.input(Integer.numberOfTrailingZeros(m), Player.X);
+        for (int m = oMask; m != 0; m &= m - 1) active[count++] = NnueEvaluator.input(Integer.numberOfTrailingZeros(m), Player.O);
+        return count;
+    }
+
+    // leaves the first-layer sums in z and returns the output
+    private double forward(int[] active, int count, double[] z) {
+        double out = b2;
+        for (int h = 0; h < HIDDEN; h++) {
+            double sum = b1[h];
+            for (int c = 0; c < count; c++) sum += w1[active[c] * HIDDEN + h];
+            z[h] = sum;
+            out += w2[h] * Math.max(0.0, Math.min(1.0, sum));
+        }
+        return out;
+    }
+
+    private double heldOutLoss(int[] xMasks, int[] oMasks, double[] targets, int from, int to, double[] z, int[] active) {
+        double loss = 0.0;
+        for (int row = from; row < to; row++) {
+            double diff = forward(active, activeInputs(xMasks[row], oMasks[row], active), z) - targets[row];
+            loss += diff * diff;
+        }
+        return loss / (to - from);
+    }
+
+    private static double clamp(double v, double limit) {
+
+        return Math.max(-limit, Math.min(limit, v));
+    }
+
+    private double[] snapshot() {
+        double[] s = new double[w1.length + 2 * HIDDEN + 1];
+        System.arraycopy(w1, 0, s, 0, w1.length);
+        System.arraycopy(b1, 0, s, w1.length, HIDDEN);
+        System.arraycopy(w2, 0, s, w1.length + HIDDEN, HIDDEN);
+        s[s.length - 1] = b2;
+        return s;
+    }
+
+    private void restore(double[] s) {
+        System.arraycopy(s, 0, w1, 0, w1.length);
+        System.arraycopy(s, w1.length, b1, 0, HIDDEN);
+        System.arraycopy(s, w1.length + HIDDEN, w2, 0, HIDDEN);
+        b2 = s[s.length - 1];
+    }
+
+    // NnueTrainer <out file> [epochs]: trains on the solved game and writes the quantized weights
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: NnueTrainer <out file> [epochs]");
+            System.exit(2);
+        }
+        int epochs = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        NnueEvaluator net = trainFromTablebase(Tablebase.solve(), new TrainingOptions(epochs, 0.1, 32, 0));
+        net.save(Path.of(args[0]));
+    }
+}
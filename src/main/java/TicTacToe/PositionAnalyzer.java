@@ -0,0 +1,267 @@
+package TicTacToe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Analyzes a file of positions, one per line, and writes one result line per
+// input line in the same order:
+//
+//   in:  <board> <side>                  e.g. "X...O...X O"
+//   out: <board> <side> <cell> <score> <nodes>
+//
+// <board> is nine of X, O and '.', row by row; <side> is the side to move. The
+// score is for the side to move, positive being good for it. A finished game
+// gets '-' for the cell and its final score; a line that is not a position is
+// copied with "ERR <reason>" after it. Blank lines and lines starting with '#'
+// are copied unchanged.
+//
+// The calling thread parses lines into chunks, a pool of workers searches them,
+// each with its own SearchEngine, and a writer thread puts finished chunks back
+// in order. Only a fixed number of chunks may be anywhere between reading and
+// writing, so a slow disk or a slow chunk holds the reader back and memory
+// stays the same whatever the size of the file.
+public class PositionAnalyzer {
+
+    private static final int CHUNK_LINES = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int IO_BUFFER = 1 << 16;
+    private static final long REPORT_NANOS = 2_000_000_000L;
+
+    private static final class Chunk {
+        final long seq;
+        final List<String> lines;
+        String[] results;
+
+        Chunk(long seq, List<String> lines) {
+            this.seq = seq;
+            this.lines = lines;
+        }
+    }
+
+    private static final Chunk END = new Chunk(-1, List.of());
+
+    private final BoardEvaluator evaluator;
+    private final SearchLimits limits;
+
+    // every position is searched under limits, see SearchEngine.search(Board, Player, Player)
+    public PositionAnalyzer(BoardEvaluator evaluator, SearchLimits limits) {
+        this.evaluator = evaluator;
+        this.limits = limits;
+    }
+
+    public long run(Path in, Path out, int threads) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(in, StandardCharsets.US_ASCII), IO_BUFFER);
+             BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.US_ASCII), IO_BUFFER)) {
+            return run(reader, writer, threads);
+        }
+    }
+
+    // returns the number of lines written; neither stream is closed
+    public long run(Reader in, Writer out, int threads) throws IOException, InterruptedException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, IO_BUFFER);
+        int window = threads * CHUNKS_PER_THREAD;
+        // a permit per chunk between reading and writing; the writer gives them back
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Chunk> toWorkers = new ArrayBlockingQueue<>(window + threads);
+        // never holds more than window chunks, since each one carries a permit
+        BlockingQueue<Chunk> toWriter = new LinkedBlockingQueue<>();
+        // the first thing that went wrong on any thread, rethrown by run
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long[] written = new long[1];
+        long start = System.nanoTime();
+
+        Thread writerThread = new Thread(() -> {
+            // chunks that arrived early, at seq % window; at most window ahead
+            Chunk[] pending = new Chunk[window];
+            long next = 0;
+            long nextReport = start + REPORT_NANOS;
+            try {
+                for (Chunk c = toWriter.take(); c != END; c = toWriter.take()) {
+                    pending[(int) (c.seq % window)] = c;
+                    for (Chunk ready = pending[(int) (next % window)]; ready != null && ready.seq == next;
+                         ready = pending[(int) (next % window)]) {
+                        pending[(int) (next % window)] = null;
+                        // after a failure keep going so the reader is never stuck on a permit
+                        if (failure.get() == null) {
+                            try {
+                                for (String line : ready.results) {
+                                    out.write(line);
+                                    out.write('\n');
+                                }
+                                written[0] += ready.results.length;
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        }
+                        next++;
+                        inFlight.release();
+                    }
+                    long now = System.nanoTime();
+                    if (now >= nextReport) {
+                        report(written[0], now - start);
+                        nextReport = now + REPORT_NANOS;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "analysis-writer");
+        writerThread.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                SearchEngine engine = null;
+                try {
+                    for (Chunk c = toWorkers.take(); c != END; c = toWorkers.take()) {
+                        // a chunk that never reaches the writer would hold its permit for
+                        // good, so every one is handed on; after a failure it goes unsearched
+                        if (failure.get() == null) {
+                            try {
+                                if (engine == null) engine = new SearchEngine(evaluator, limits);
+                                c.results = analyze(engine, c.lines);
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        }
+                        toWriter.put(c);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // the parser: this thread
+        long seq = 0;
+        try {
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            String line;
+            while (failure.get() == null && (line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    inFlight.acquire();
+                    toWorkers.put(new Chunk(seq++, lines));
+                    lines = new ArrayList<>(CHUNK_LINES);
+                }
+            }
+            if (!lines.isEmpty()) {
+                inFlight.acquire();
+                toWorkers.put(new Chunk(seq++, lines));
+            }
+        } finally {
+            for (int t = 0; t < threads; t++) toWorkers.put(END);
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            toWriter.put(END);
+            writerThread.join();
+        }
+
+        Throwable f = failure.get();
+        if (f instanceof IOException) throw (IOException) f;
+        if (f instanceof RuntimeException) throw (RuntimeException) f;
+        if (f instanceof Error) throw (Error) f;
+        out.flush();
+        report(written[0], System.nanoTime() - start);
+        return written[0];
+    }
+
+    private static void report(long lines, long elapsedNanos) {
+
+        System.out.printf(Locale.ROOT, "%d positions, %.0f positions/s%n", lines, lines / (elapsedNanos / 1e9));
+    }
+
+    // the output lines for a chunk; a line whose search throws gets ERR
+    private String[] analyze(SearchEngine engine, List<String> lines) {
+        // positions of a chunk share the table, but each chunk starts
+        // clean so node counts do not depend on which worker got it
+        engine.getTranspositionTable().clear();
+        String[] results = new String[lines.size()];
+        for (int i = 0; i < results.length; i++) {
+            try {
+                results[i] = analyze(engine, lines.get(i));
+            } catch (RuntimeException e) {
+                results[i] = lines.get(i) + " ERR " + e;
+            }
+        }
+        return results;
+    }
+
+    // the output line for one input line
+    String analyze(SearchEngine engine, String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) return line;
+
+        String[] parts = trimmed.split("\\s+");
+        if (parts.length != 2) return line + " ERR expected <board> <side>";
+        String cells = parts[0].toUpperCase(Locale.ROOT);
+        String side = parts[1].toUpperCase(Locale.ROOT);
+        if (cells.length() != Board.CELLS) return line + " ERR board must have " + Board.CELLS + " cells";
+        if (!side.equals("X") && !side.equals("O")) return line + " ERR side must be X or O";
+
+        Board board = new Board();
+        for (int i = 0; i < Board.CELLS; i++) {
+            char c = cells.charAt(i);
+            if (c == 'X') board.makeMove(i, Player.X);
+            else if (c == 'O') board.makeMove(i, Player.O);
+            else if (c != '.') return line + " ERR bad cell '" + cells.charAt(i) + "'";
+        }
+        Player toMove = Player.valueOf(side);
+
+        // search scores are for the side that does not move, so they are negated
+        if (board.isTerminal()) {
+            return cells + " " + side + " - " + -evaluator.evaluate(board, toMove.opposite()) + " 0";
+        }
+        SearchResult result = engine.search(board, toMove.opposite(), toMove);
+        Move best = result.getBestMove();
+        return cells + " " + side + " " + (best.getRow() * Board.SIZE + best.getCol()) + " "
+                + -best.getScore() + " " + result.getNodes();
+    }
+
+    // PositionAnalyzer <in> <out> [evaluator] [depth] [threads] [-ml weights] [-nnue weights]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> positional = new ArrayList<>();
+        Path ml = Path.of("tictactoe_model.bin");
+        Path nnue = Path.of("tictactoe.nnue");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-ml": ml = Path.of(args[++i]); break;
+                case "-nnue": nnue = Path.of(args[++i]); break;
+                default: positional.add(args[i]);
+            }
+        }
+        if (positional.size() < 2) {
+            System.err.println("usage: PositionAnalyzer <in> <out> [classic|ml|nnue] [depth] [threads] [-ml weights] [-nnue weights]");
+            System.exit(2);
+        }
+        String name = positional.size() > 2 ? positional.get(2) : "classic";
+        int depth = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : Board.CELLS;
+        int threads = positional.size() > 4 ? Integer.parseInt(positional.get(4)) : Runtime.getRuntime().availableProcessors();
+
+        // weights that are not there just leave their evaluator out
+        BoardEvaluator evaluator = GameServer.loadEvaluators(
+                Files.exists(ml) ? ml : null, Files.exists(nnue) ? nnue : null).get(name);
+        if (evaluator == null) {
+            System.err.println("No evaluator " + name);
+            System.exit(2);
+        }
+        new PositionAnalyzer(evaluator, SearchLimits.depth(depth)).run(Path.of(positional.get(0)), Path.of(positional.get(1)), threads);
+    }
+}
@@ -0,0 +1,825 @@
+package TicTacToe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import jdk.jfr.EventType;
+
+// Alpha-beta search over one evaluator, with its own transposition table and
+// scratch buffers and nothing shared but immutable evaluators and tablebases,
+// so any number of engines can search side by side. Searches on one engine
+// run one at a time; give each game, or each thread, an engine of its own.
+public class SearchEngine implements MoveSearcher {
+
+    // move ordering keys: table move, then wins, blocks, killers, then history
+    private static final int TT_MOVE_KEY = 1 << 30;
+    private static final int WIN_KEY = 1 << 29;
+    private static final int BLOCK_KEY = 1 << 28;
+    private static final int KILLER_KEY = 1 << 27;
+    private static final int HISTORY_MAX = 1 << 20;
+
+    private static final int ASPIRATION_WINDOW = 25;
+
+    // one leaf in this many has its evaluation timed, the clock costs more than most evaluations
+    private static final int EVAL_SAMPLE_MASK = 7;
+
+    private static final EventType SEARCH_EVENT = EventType.getEventType(SearchEvent.class);
+
+    private final BoardEvaluator evaluator;
+    private final SearchLimits limits;
+    private final SearchOptions options;
+    private final Tablebase tablebase;
+    private final TranspositionTable tt;
+    // mixed into every table key; lets engines with different evaluators share a table
+    private final long salt;
+
+    // evaluators with a faster path than evaluate(Board), at most one set
+    private final MLModel model;
+    private final NnueEvaluator nnue;
+
+    private final Scratch scratch = new Scratch();
+
+    // per-search state; one for the engine, and a fresh one per parallel task
+    private static final class Scratch {
+        final int[][] moves = new int[Board.CELLS + 1][Board.CELLS];
+        final int[][] orderKeys = new int[Board.CELLS + 1][Board.CELLS];
+        final int[][] killers = new int[Board.CELLS + 1][2];
+        final int[][] history = new int[2][Board.CELLS];
+        long nodes;
+        // remaining depth at which a node's children are split across the pool
+        int splitDepth = Integer.MAX_VALUE;
+
+        // budget checks, only switched on by searchIterative
+        boolean limited;
+        boolean aborted;
+        long deadline;
+        long nodeLimit;
+        AtomicBoolean stop;
+
+        // ML features kept in step with the board when leaves call the network directly
+        final IncrementalFeatures features = new IncrementalFeatures();
+        final double[] mlInputs = new double[MLModel.INPUT_SIZE];
+        // the children of a depth-1 node, evaluated by the network in one batch
+        final int[] leafFeatures = new int[Board.CELLS * FeatureExtractor.COUNT];
+        final int[] leafScores = new int[Board.CELLS];
+        final MLModel.BatchBuffers batch = new MLModel.BatchBuffers();
+        // first layer of the NNUE network, updated with every make/unmake
+        NnueAccumulator accumulator;
+
+        // statistics counters, only touched when collectStats is set
+        boolean collectStats;
+        final SearchStats.Counters counters = new SearchStats.Counters();
+        // depth, nodes and time of each completed iteration
+        final int[] iterationDepth = new int[Board.CELLS];
+        final long[] iterationNodes = new long[Board.CELLS];
+        final long[] iterationNanos = new long[Board.CELLS];
+        int iterations;
+
+        void reset(boolean collect) {
+            nodes = 0;
+            limited = false;
+            aborted = false;
+            stop = null;
+            collectStats = collect;
+            counters.reset();
+            iterations = 0;
+            for (int[] k : killers) Arrays.fill(k, TranspositionTable.NO_MOVE);
+            for (int[] h : history) Arrays.fill(h, 0);
+        }
+    }
+
+    public SearchEngine(BoardEvaluator evaluator, SearchLimits limits) {
+
+        this(evaluator, limits, SearchOptions.defaults(), null);
+    }
+
+    // tablebase, if given, answers searches that reach the end of the game; only
+    // use it with evaluators that score finished games as EvaluationClassic does
+    public SearchEngine(BoardEvaluator evaluator, SearchLimits limits, SearchOptions options, Tablebase tablebase) {
+
+        this(evaluator, limits, options, tablebase, new TranspositionTable(options.getTableBits()), 0L);
+    }
+
+    // for AlphaBeta, whose engines share one table and tell their evaluators apart by salt
+    SearchEngine(BoardEvaluator evaluator, SearchLimits limits, SearchOptions options, Tablebase tablebase,
+                 TranspositionTable tt, long salt) {
+        if (evaluator == null) throw new IllegalArgumentException("evaluator must not be null");
+        this.evaluator = evaluator;
+        this.limits = limits;
+        this.options = options;
+        this.tablebase = tablebase;
+        this.tt = tt;
+        this.salt = salt;
+        this.model = evaluator instanceof MLModel ? (MLModel) evaluator : null;
+        this.nnue = evaluator instanceof NnueEvaluator ? (NnueEvaluator) evaluator : null;
+    }
+
+    // the classic heuristic, through its precompiled table
+    public static SearchEngine classic(SearchLimits limits) {
+
+        return new SearchEngine(EvaluationTable.classic(), limits);
+    }
+
+    public BoardEvaluator getEvaluator() { return evaluator; }
+    public SearchLimits getLimits() { return limits; }
+    public SearchOptions getOptions() { return options; }
+    public TranspositionTable getTranspositionTable() { return tt; }
+
+    // this engine's limits: iterative deepening when they have a time or node
+    // budget, a single search to the maximum depth otherwise
+    @Override
+    public SearchResult search(Board board, Player humanPlayer, Player aiPlayer) {
+        if (limits.hasBudget()) return searchIterative(board, humanPlayer, aiPlayer, limits, null, null);
+        return search(board, humanPlayer, aiPlayer, limits.getMaxDepth());
+    }
+
+    // the table is this engine's only memory of earlier searches
+    @Override
+    public void newGame() {
+
+        tt.clear();
+    }
+
+    private boolean collectStatistics() {
+
+        return options.isStatistics() || SEARCH_EVENT.isEnabled();
+    }
+
+    // call once the board the search will mutate is set up
+    private void prepare(Scratch scratch, Board board) {
+        if (model != null) scratch.features.reset(board);
+        if (nnue != null) {
+            if (scratch.accumulator == null) scratch.accumulator = nnue.newAccumulator();
+            scratch.accumulator.reset(board);
+        }
+    }
+
+    private int evalBoard(Board board, Player humanPlayer, Scratch scratch) {
+        if (model != null) {
+            return MLModel.toSearchScale(model.evaluateFeatures(scratch.features.values(), humanPlayer, scratch.mlInputs));
+        }
+        if (nnue != null) return nnue.evaluate(scratch.accumulator, board, humanPlayer);
+        return evaluator.evaluate(board, humanPlayer);
+    }
+
+    public synchronized SearchResult search(Board board, Player humanPlayer, Player aiPlayer, int depth) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        SearchResult solved = probeTablebase(board, humanPlayer, aiPlayer, depth, start);
+        if (solved != null) {
+            event.finish("tablebase", solved);
+            return solved;
+        }
+        scratch.reset(collectStatistics());
+        Board work = new Board(board);
+        prepare(scratch, work);
+        tt.newSearch();
+
+        int[] order = new int[Board.CELLS];
+        int[] scores = new int[Board.CELLS];
+        int count = work.generateMoves(order);
+        searchRoot(work, humanPlayer, aiPlayer, depth, order, scores, count, false, scratch);
+
+        long elapsed = System.nanoTime() - start;
+        recordIteration(scratch, depth, scratch.nodes, elapsed);
+        SearchResult result = buildResult(work, humanPlayer, aiPlayer, order, scores, count, depth,
+                scratch.nodes, elapsed, stats(scratch, scratch.nodes, elapsed));
+        event.finish("fixed", result);
+        return result;
+    }
+
+    public SearchResult searchParallel(Board board, Player humanPlayer, Player aiPlayer, int depth) {
+
+        return searchParallel(board, humanPlayer, aiPlayer, depth, ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    // Root moves run as separate tasks on pool. Each is searched against the best
+    // score found so far, so it returns an exact score only if it can still be
+    // the best move; other root scores are lower bounds. The best move is the
+    // same as search() picks. Nodes with at least splitDepth plies left also
+    // split their younger children across the pool.
+    public synchronized SearchResult searchParallel(Board board, Player humanPlayer, Player aiPlayer, int depth,
+                                                    ForkJoinPool pool, int splitDepth) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Board work = new Board(board);
+        tt.newSearch();
+
+        int[] order = new int[Board.CELLS];
+        int[] scores = new int[Board.CELLS];
+        int count = work.generateMoves(order);
+
+        boolean collect = collectStatistics();
+        AtomicInteger bestSoFar = new AtomicInteger(Integer.MAX_VALUE);
+        RootTask[] tasks = new RootTask[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new RootTask(work, humanPlayer, aiPlayer, depth, order[i], splitDepth, collect, bestSoFar);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        // the engine's scratch only gathers the task counters
+        scratch.reset(collect);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            scores[i] = tasks[i].score;
+            nodes += tasks[i].scratch.nodes;
+            if (collect) scratch.counters.add(tasks[i].scratch.counters);
+        }
+        long elapsed = System.nanoTime() - start;
+        recordIteration(scratch, depth, nodes, elapsed);
+        SearchResult result = buildResult(work, humanPlayer, aiPlayer, order, scores, count, depth,
+                nodes, elapsed, stats(scratch, nodes, elapsed));
+        event.finish("parallel", result);
+        return result;
+    }
+
+    // fork-join tasks are Serializable only through RecursiveAction; these are never serialized
+    @SuppressWarnings("serial")
+    private final class RootTask extends RecursiveAction {
+        private final Board root;
+        private final Player humanPlayer;
+        private final Player aiPlayer;
+        private final int depth;
+        private final int move;
+        private final int splitDepth;
+        private final boolean collect;
+        private final AtomicInteger bestSoFar;
+        int score;
+        // a fresh scratch, since a joining worker may run another task on this thread
+        final Scratch scratch = new Scratch();
+
+        RootTask(Board root, Player humanPlayer, Player aiPlayer, int depth, int move,
+                 int splitDepth, boolean collect, AtomicInteger bestSoFar) {
+            this.root = root;
+            this.humanPlayer = humanPlayer;
+            this.aiPlayer = aiPlayer;
+            this.depth = depth;
+            this.move = move;
+            this.splitDepth = splitDepth;
+            this.collect = collect;
+            this.bestSoFar = bestSoFar;
+        }
+
+        @Override
+        protected void compute() {
+            Board work = new Board(root);
+            work.makeMove(move, aiPlayer);
+            scratch.reset(collect);
+            scratch.splitDepth = splitDepth;
+            prepare(scratch, work);
+
+            // anything above the best so far cannot win, so that is as far as the window goes
+            int bound = bestSoFar.get();
+            int beta = bound == Integer.MAX_VALUE ? Integer.MAX_VALUE : bound + 1;
+            score = alphaBeta(work, humanPlayer, humanPlayer, depth - 1, Integer.MIN_VALUE, beta, scratch, 1);
+            bestSoFar.accumulateAndGet(score, Math::min);
+        }
+    }
+
+    // searches children 1..count-1 of a node in parallel with the node's window
+    private int[] searchSiblings(Board board, int[] moves, int count, Player playerToMove, Player maxPlayer,
+                                 int depth, int alpha, int beta, Scratch scratch) {
+        int[] evals = new int[count];
+        SiblingTask[] tasks = new SiblingTask[count - 1];
+        for (int i = 1; i < count; i++) {
+            Board child = new Board(board);
+            child.makeMove(moves[i], playerToMove);
+            tasks[i - 1] = new SiblingTask(child, playerToMove.opposite(), maxPlayer, depth - 1, alpha, beta,
+                    scratch.splitDepth, scratch.collectStats);
+        }
+        RecursiveAction.invokeAll(tasks);
+
+        for (int i = 1; i < count; i++) {
+            evals[i] = tasks[i - 1].eval;
+            scratch.nodes += tasks[i - 1].scratch.nodes;
+            if (scratch.collectStats) scratch.counters.add(tasks[i - 1].scratch.counters);
+        }
+        return evals;
+    }
+
+    @SuppressWarnings("serial")
+    private final class SiblingTask extends RecursiveAction {
+        private final Board board;
+        private final Player playerToMove;
+        private final Player maxPlayer;
+        private final int depth;
+        private final int alpha;
+        private final int beta;
+        private final int splitDepth;
+        private final boolean collect;
+        int eval;
+        final Scratch scratch = new Scratch();
+
+        SiblingTask(Board board, Player playerToMove, Player maxPlayer, int depth, int alpha, int beta,
+                    int splitDepth, boolean collect) {
+            this.board = board;
+            this.playerToMove = playerToMove;
+            this.maxPlayer = maxPlayer;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.splitDepth = splitDepth;
+            this.collect = collect;
+        }
+
+        @Override
+        protected void compute() {
+            scratch.reset(collect);
+            scratch.splitDepth = splitDepth;
+            prepare(scratch, board);
+            eval = alphaBeta(board, playerToMove, maxPlayer, depth, alpha, beta, scratch, 1);
+        }
+    }
+
+    // searches depth 1, 2, 3... and returns the last iteration that finished
+    // inside the budget; depth 1 always runs to completion
+    public SearchResult searchIterative(Board board, Player humanPlayer, Player aiPlayer, SearchLimits limits) {
+
+        return searchIterative(board, humanPlayer, aiPlayer, limits, null, null);
+    }
+
+    // stop, when set from another thread, ends the search like an exhausted budget;
+    // onIteration, if given, receives the result of every completed depth
+    public synchronized SearchResult searchIterative(Board board, Player humanPlayer, Player aiPlayer, SearchLimits limits,
+                                                     AtomicBoolean stop, Consumer<SearchResult> onIteration) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        SearchResult solved = probeTablebase(board, humanPlayer, aiPlayer, limits.getMaxDepth(), start);
+        if (solved != null) {
+            if (onIteration != null) onIteration.accept(solved);
+            event.finish("tablebase", solved);
+            return solved;
+        }
+        scratch.reset(collectStatistics());
+        scratch.stop = stop;
+        scratch.deadline = limits.getTimeMillis() > 0 ? start + limits.getTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        scratch.nodeLimit = limits.getMaxNodes() > 0 ? limits.getMaxNodes() : Long.MAX_VALUE;
+        Board work = new Board(board);
+        prepare(scratch, work);
+        tt.newSearch();
+
+        int[] order = new int[Board.CELLS];
+        int[] scores = new int[Board.CELLS];
+        int count = work.generateMoves(order);
+
+        int[] doneOrder = new int[Board.CELLS];
+        int[] doneScores = new int[Board.CELLS];
+        int doneDepth = 0;
+
+        // past the number of empty cells every line already ends the game
+        int maxDepth = Math.min(limits.getMaxDepth(), Math.max(1, count));
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            scratch.limited = depth > 1 && (limits.hasBudget() || stop != null);
+            boolean window = options.isAspiration() && depth > 1;
+            SearchIterationEvent iteration = new SearchIterationEvent();
+            iteration.begin();
+            long iterationStart = System.nanoTime();
+            long nodesBefore = scratch.nodes;
+            if (!searchRoot(work, humanPlayer, aiPlayer, depth, order, scores, count, window, scratch)) break;
+            recordIteration(scratch, depth, scratch.nodes - nodesBefore, System.nanoTime() - iterationStart);
+
+            // best first, so the next iteration starts from this one's choice
+            sortByScore(order, scores, count);
+            System.arraycopy(order, 0, doneOrder, 0, count);
+            System.arraycopy(scores, 0, doneScores, 0, count);
+            doneDepth = depth;
+
+            iteration.end();
+            if (iteration.shouldCommit()) {
+                iteration.depth = depth;
+                iteration.nodes = scratch.iterationNodes[scratch.iterations - 1];
+                iteration.bestScore = count > 0 ? scores[0] : 0;
+                iteration.commit();
+            }
+
+            if (onIteration != null) {
+                long elapsed = System.nanoTime() - start;
+                onIteration.accept(buildResult(work, humanPlayer, aiPlayer, doneOrder, doneScores, count, doneDepth,
+                        scratch.nodes, elapsed, stats(scratch, scratch.nodes, elapsed)));
+            }
+        }
+        scratch.limited = false;
+
+        long elapsed = System.nanoTime() - start;
+        SearchResult result = buildResult(work, humanPlayer, aiPlayer, doneOrder, doneScores, count, doneDepth,
+                scratch.nodes, elapsed, stats(scratch, scratch.nodes, elapsed));
+        event.finish("iterative", result);
+        return result;
+    }
+
+    // A search that reaches the end of the game only ever sees exact win/draw/loss
+    // scores, which the tablebase already holds; shallower searches keep their
+    // own character, so they are not answered from it. Returns null when the
+    // tablebase cannot answer.
+    private SearchResult probeTablebase(Board board, Player humanPlayer, Player aiPlayer, int depth, long start) {
+        Tablebase tb = tablebase;
+        if (tb == null) return null;
+        int empty = board.getEmptyMask();
+        if (empty == 0 || depth < Integer.bitCount(empty)) return null;
+
+        int entry = tb.probe(board, aiPlayer);
+        if (Tablebase.valueOf(entry) == Tablebase.UNKNOWN || Tablebase.optimalMovesOf(entry) == 0) return null;
+
+        int[] order = new int[Board.CELLS];
+        int[] scores = new int[Board.CELLS];
+        int count = board.generateMoves(order);
+        Board work = new Board(board);
+        for (int i = 0; i < count; i++) {
+            work.makeMove(order[i], aiPlayer);
+            int child = tb.probe(work, humanPlayer);
+            work.unmakeMove(order[i]);
+
+            // child values are for the human, who moves next
+            int value = Tablebase.valueOf(child);
+            if (value == Tablebase.UNKNOWN) return null;
+            scores[i] = value == Tablebase.WIN ? 1000 : value == Tablebase.LOSS ? -1000 : 0;
+        }
+
+        // lowest optimal cell first: fastest win, else longest resistance
+        int bestIdx = Integer.numberOfTrailingZeros(Tablebase.optimalMovesOf(entry));
+        List<Move> rootMoves = new ArrayList<>();
+        Move bestMove = null;
+        for (int i = 0; i < count; i++) {
+            Move move = new Move(order[i] / Board.SIZE, order[i] % Board.SIZE);
+            move.setScore(scores[i]);
+            rootMoves.add(move);
+            if (order[i] == bestIdx) bestMove = move;
+        }
+
+        List<Move> pv = new ArrayList<>();
+        Player toMove = aiPlayer;
+        int e = entry;
+        while (Tablebase.optimalMovesOf(e) != 0) {
+            int idx = Integer.numberOfTrailingZeros(Tablebase.optimalMovesOf(e));
+            pv.add(new Move(idx / Board.SIZE, idx % Board.SIZE));
+            work.makeMove(idx, toMove);
+            toMove = toMove.opposite();
+            e = tb.probe(work, toMove);
+        }
+
+        return new SearchResult(bestMove, rootMoves, pv, depth, 0, System.nanoTime() - start);
+    }
+
+    // scores every root move in the given order; false if the budget ran out first.
+    // With window set, scores holds the previous iteration and each move is first
+    // searched in a narrow window around its old score, widening only on failure
+    private boolean searchRoot(Board work, Player humanPlayer, Player aiPlayer, int depth,
+                               int[] order, int[] scores, int count, boolean window, Scratch scratch) {
+        for (int i = 0; i < count; i++) {
+            int idx = order[i];
+            play(work, scratch, idx, aiPlayer);
+            int score;
+            if (window) {
+                int lo = scores[i] - ASPIRATION_WINDOW;
+                int hi = scores[i] + ASPIRATION_WINDOW;
+                score = alphaBeta(work,humanPlayer,humanPlayer, depth - 1,lo,hi,scratch,1);
+                if (!scratch.aborted && (score <= lo || score >= hi)) {
+                    score = alphaBeta(work,humanPlayer,humanPlayer, depth - 1,Integer.MIN_VALUE,Integer.MAX_VALUE,scratch,1);
+                }
+            } else {
+                score = alphaBeta(work,humanPlayer,humanPlayer, depth - 1,Integer.MIN_VALUE,Integer.MAX_VALUE,scratch,1);
+            }
+            undo(work, scratch, idx, aiPlayer);
+
+            if (scratch.aborted) return false;
+            scores[i] = score;
+        }
+        return true;
+    }
+
+    // AI minimises, so the lowest score goes first; stable for equal scores
+    private static void sortByScore(int[] order, int[] scores, int count) {
+        for (int i = 1; i < count; i++) {
+            int idx = order[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] > score) {
+                order[j + 1] = order[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            order[j + 1] = idx;
+            scores[j + 1] = score;
+        }
+    }
+
+    private SearchResult buildResult(Board work, Player humanPlayer, Player aiPlayer,
+                                     int[] order, int[] scores, int count, int depth,
+                                     long nodes, long elapsedNanos, SearchStats stats) {
+        List<Move> rootMoves = new ArrayList<>();
+        Move bestMove = null;
+
+        // report root moves in board order whatever order they were searched in
+        for (int idx = 0; idx < Board.CELLS; idx++) {
+            for (int i = 0; i < count; i++) {
+                if (order[i] != idx) continue;
+
+                Move move = new Move(idx / Board.SIZE, idx % Board.SIZE);
+                move.setScore(scores[i]);
+                rootMoves.add(move);
+                if (bestMove == null || scores[i] < bestMove.getScore()) {
+                    bestMove = move;
+                }
+            }
+        }
+
+        List<Move> pv = principalVariation(work, bestMove, humanPlayer, aiPlayer, depth);
+        return new SearchResult(bestMove, rootMoves, pv, depth, nodes, elapsedNanos, stats);
+    }
+
+    // null when statistics are off
+    private static SearchStats stats(Scratch scratch, long nodes, long elapsedNanos) {
+        if (!scratch.collectStats) return null;
+        return new SearchStats(scratch.counters, nodes, elapsedNanos, scratch.iterations,
+                scratch.iterationDepth, scratch.iterationNodes, scratch.iterationNanos);
+    }
+
+    private static void recordIteration(Scratch scratch, int depth, long nodes, long nanos) {
+        if (scratch.iterations == Board.CELLS) return;
+        int i = scratch.iterations++;
+        scratch.iterationDepth[i] = depth;
+        scratch.iterationNodes[i] = nodes;
+        scratch.iterationNanos[i] = nanos;
+    }
+
+    // follows the best moves the table recorded below the root
+    private List<Move> principalVariation(Board board, Move first, Player humanPlayer, Player aiPlayer, int depth) {
+        List<Move> pv = new ArrayList<>();
+        if (first == null) return pv;
+
+        Board work = new Board(board);
+        pv.add(first);
+        work.setCell(first.getRow(), first.getCol(), aiPlayer);
+        Player toMove = humanPlayer;
+
+        while (pv.size() < depth && !work.isTerminal()) {
+            long key = work.getHash() ^ Zobrist.toMove(toMove) ^ Zobrist.perspective(humanPlayer) ^ salt;
+            int idx = TranspositionTable.moveOf(tt.probe(key));
+            if (idx == TranspositionTable.NO_MOVE || (work.getEmptyMask() & (1 << idx)) == 0) break;
+
+            pv.add(new Move(idx / Board.SIZE, idx % Board.SIZE));
+            work.makeMove(idx, toMove);
+            toMove = toMove.opposite();
+        }
+        return pv;
+    }
+
+    // board is searched in place: every makeMove is undone before returning
+    private int alphaBeta(Board board,Player playerToMove,Player maxPlayer,int depth,int alpha,int beta,Scratch scratch,int ply) {
+        scratch.nodes++;
+        if (scratch.limited && outOfBudget(scratch)) {
+            scratch.aborted = true;
+        }
+        if (scratch.aborted) return 0;
+
+        if (depth == 0 || board.isTerminal()) {
+            if (scratch.collectStats) return timedEval(board, maxPlayer, scratch);
+            return evalBoard(board, maxPlayer, scratch);
+        }
+
+        int alphaOrig = alpha;
+        int betaOrig = beta;
+        long key = board.getHash() ^ Zobrist.toMove(playerToMove) ^ Zobrist.perspective(maxPlayer) ^ salt;
+        // difficulty is a fixed depth, so only entries searched to the same depth
+        // are reused; any depth that reaches the end of the game counts as one
+        int ttDepth = Math.min(depth, Integer.bitCount(board.getEmptyMask()));
+        long entry = tt.probe(key);
+        if (scratch.collectStats) {
+            if (entry != 0) scratch.counters.tableHits++;
+            else scratch.counters.tableMisses++;
+        }
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.moveOf(entry);
+            if (TranspositionTable.depthOf(entry) == ttDepth) {
+                int ttScore = TranspositionTable.scoreOf(entry);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT) return ttScore;
+                if (bound == TranspositionTable.LOWER) alpha = Math.max(alpha, ttScore);
+                else beta = Math.min(beta, ttScore);
+                if (beta <= alpha) return ttScore;
+            }
+        }
+
+        boolean isMaxNode = (playerToMove == maxPlayer);
+        int[] moves = scratch.moves[ply];
+        int count = board.generateMoves(moves);
+        if (options.isMoveOrdering()) {
+            orderMoves(board, moves, count, playerToMove, ttMove, scratch, ply);
+        } else if (ttMove != TranspositionTable.NO_MOVE) {
+            moveToFront(moves, count, ttMove);
+        }
+        boolean pvs = options.isPvs();
+
+        int best;
+        int bestMove = TranspositionTable.NO_MOVE;
+        // young brothers wait: once the eldest child is searched, the rest of a
+        // deep node's children are searched in parallel and read from here
+        int[] siblings = null;
+        if (depth == 1 && model != null) {
+            siblings = evaluateLeaves(board, moves, count, playerToMove, maxPlayer, scratch);
+        }
+
+        if (isMaxNode) { // HUMAN TURN (MAX)
+            int maxEval = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int eval;
+                if (siblings != null) {
+                    eval = siblings[i];
+                } else {
+                    play(board, scratch, moves[i], playerToMove);
+                    if (pvs && i > 0) {
+                        // prove the move cannot raise alpha; re-search only if it does
+                        eval = alphaBeta(board,playerToMove.opposite(), maxPlayer,depth - 1,alpha,alpha + 1,scratch,ply + 1);
+                        if (!scratch.aborted && eval > alpha && eval < beta) {
+                            eval = alphaBeta(board,playerToMove.opposite(), maxPlayer,depth - 1,alpha,beta,scratch,ply + 1);
+                        }
+                    } else {
+                        eval = alphaBeta(board,playerToMove.opposite(), maxPlayer,depth - 1,alpha,beta,scratch,ply + 1);
+                    }
+                    undo(board, scratch, moves[i], playerToMove);
+                    if (scratch.aborted) return 0;
+                }
+
+                if (eval > maxEval) {
+                    maxEval = eval;
+                    bestMove = moves[i];
+                }
+                alpha = Math.max(alpha, eval);
+                if (beta <= alpha) {
+                    if (scratch.collectStats) scratch.counters.cutoffs[i]++;
+                    recordCutoff(scratch, playerToMove, moves[i], depth, ply);
+                    break;
+                }
+                if (i == 0 && siblings == null && count > 1 && depth >= scratch.splitDepth) {
+                    siblings = searchSiblings(board, moves, count, playerToMove, maxPlayer, depth, alpha, beta, scratch);
+                }
+            }
+            best = maxEval;
+        } else {
+            int minEval = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int eval;
+                if (siblings != null) {
+                    eval = siblings[i];
+                } else {
+                    play(board, scratch, moves[i], playerToMove);
+                    if (pvs && i > 0) {
+                        // prove the move cannot lower beta; re-search only if it does
+                        eval = alphaBeta(board,playerToMove.opposite(),maxPlayer,depth - 1,beta - 1,beta,scratch,ply + 1);
+                        if (!scratch.aborted && eval > alpha && eval < beta) {
+                            eval = alphaBeta(board,playerToMove.opposite(),maxPlayer,depth - 1,alpha,beta,scratch,ply + 1);
+                        }
+                    } else {
+                        eval = alphaBeta(board,playerToMove.opposite(),maxPlayer,depth - 1,alpha,beta,scratch,ply + 1);
+                    }
+                    undo(board, scratch, moves[i], playerToMove);
+                    if (scratch.aborted) return 0;
+                }
+
+                if (eval < minEval) {
+                    minEval = eval;
+                    bestMove = moves[i];
+                }
+                beta = Math.min(beta, eval);
+                if (beta <= alpha) {
+                    if (scratch.collectStats) scratch.counters.cutoffs[i]++;
+                    recordCutoff(scratch, playerToMove, moves[i], depth, ply);
+                    break;
+                }
+                if (i == 0 && siblings == null && count > 1 && depth >= scratch.splitDepth) {
+                    siblings = searchSiblings(board, moves, count, playerToMove, maxPlayer, depth, alpha, beta, scratch);
+                }
+            }
+            best = minEval;
+        }
+
+        int bound;
+        if (best <= alphaOrig) bound = TranspositionTable.UPPER;
+        else if (best >= betaOrig) bound = TranspositionTable.LOWER;
+        else bound = TranspositionTable.EXACT;
+        if (tt.store(key, ttDepth, best, bound, bestMove) && scratch.collectStats) scratch.counters.tableStores++;
+        return best;
+    }
+
+    // every child of a depth-1 node is a leaf, so their features are gathered
+    // and the network scores them together; the caller reads them like siblings
+    private int[] evaluateLeaves(Board board, int[] moves, int count, Player playerToMove, Player maxPlayer,
+                                 Scratch scratch) {
+        int[] values = scratch.features.values();
+        for (int i = 0; i < count; i++) {
+            scratch.features.add(moves[i], playerToMove);
+            System.arraycopy(values, 0, scratch.leafFeatures, i * FeatureExtractor.COUNT, FeatureExtractor.COUNT);
+            scratch.features.remove(moves[i], playerToMove);
+        }
+        scratch.nodes += count;
+        if (!scratch.collectStats) {
+            model.evaluateBatch(scratch.leafFeatures, count, maxPlayer, scratch.leafScores, scratch.batch);
+            return scratch.leafScores;
+        }
+        // a whole batch is worth timing
+        long t = System.nanoTime();
+        model.evaluateBatch(scratch.leafFeatures, count, maxPlayer, scratch.leafScores, scratch.batch);
+        SearchStats.Counters c = scratch.counters;
+        c.evalNanos += System.nanoTime() - t;
+        c.leaves += count;
+        c.timedLeaves += count;
+        return scratch.leafScores;
+    }
+
+    private int timedEval(Board board, Player maxPlayer, Scratch scratch) {
+        SearchStats.Counters c = scratch.counters;
+        if ((c.leaves++ & EVAL_SAMPLE_MASK) != 0) return evalBoard(board, maxPlayer, scratch);
+        long t = System.nanoTime();
+        int score = evalBoard(board, maxPlayer, scratch);
+        c.evalNanos += System.nanoTime() - t;
+        c.timedLeaves++;
+        return score;
+    }
+
+    private void play(Board board, Scratch scratch, int idx, Player p) {
+        board.makeMove(idx, p);
+        if (model != null) scratch.features.add(idx, p);
+        if (nnue != null) scratch.accumulator.add(idx, p);
+    }
+
+    private void undo(Board board, Scratch scratch, int idx, Player p) {
+        board.unmakeMove(idx);
+        if (model != null) scratch.features.remove(idx, p);
+        if (nnue != null) scratch.accumulator.remove(idx, p);
+    }
+
+    // the clock is only read every 1024 nodes; stop is checked at every node
+    private static boolean outOfBudget(Scratch scratch) {
+        if (scratch.nodes >= scratch.nodeLimit) return true;
+        if (scratch.stop != null && scratch.stop.get()) return true;
+        return (scratch.nodes & 1023) == 0 && System.nanoTime() >= scratch.deadline;
+    }
+
+    // sorts moves by descending key; the cell prior (lines through it) breaks ties
+    private static void orderMoves(Board board, int[] moves, int count, Player toMove, int ttMove, Scratch scratch, int ply) {
+        int mine = board.getMask(toMove);
+        int theirs = board.getMask(toMove.opposite());
+        int[] killers = scratch.killers[ply];
+        int[] history = scratch.history[toMove.ordinal()];
+        int[] keys = scratch.orderKeys[ply];
+
+        for (int i = 0; i < count; i++) {
+            int m = moves[i];
+            int k;
+            if (m == ttMove) k = TT_MOVE_KEY;
+            else if (Board.completesLine(mine, m)) k = WIN_KEY;
+            else if (Board.completesLine(theirs, m)) k = BLOCK_KEY;
+            else if (m == killers[0]) k = KILLER_KEY + 1;
+            else if (m == killers[1]) k = KILLER_KEY;
+            else k = (history[m] << 4) + Board.LINES_THROUGH[m].length;
+            keys[i] = k;
+        }
+
+        for (int i = 1; i < count; i++) {
+            int m = moves[i];
+            int k = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < k) {
+                moves[j + 1] = moves[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            moves[j + 1] = m;
+            keys[j + 1] = k;
+        }
+    }
+
+    private static void recordCutoff(Scratch scratch, Player player, int move, int depth, int ply) {
+        int[] killers = scratch.killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        int[] history = scratch.history[player.ordinal()];
+        history[move] = Math.min(HISTORY_MAX, history[move] + depth * depth);
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 1; i < count; i++) {
+            if (moves[i] == move) {
+                moves[i] = moves[0];
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
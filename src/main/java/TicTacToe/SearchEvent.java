@@ -0,0 +1,74 @@
+package TicTacToe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// One finished SearchEngine search, for JDK Flight Recorder. Recording it switches
+// statistics collection on for the searches it covers.
+@Name("TicTacToe.Search")
+@Label("Search")
+@Category({"TicTacToe", "Search"})
+@Description("A completed alpha-beta search and its statistics")
+class SearchEvent extends Event {
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Best Move")
+    @Description("Cell index of the chosen move, -1 if there was none")
+    int bestMove;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Leaves")
+    long leaves;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoffs")
+    long firstMoveCutoffs;
+
+    @Label("Table Hits")
+    long tableHits;
+
+    @Label("Table Misses")
+    long tableMisses;
+
+    @Label("Effective Branching Factor")
+    double branchingFactor;
+
+    @Label("Evaluation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long evalTime;
+
+    // fills the fields and commits, if the recording wants this event
+    void finish(String kind, SearchResult result) {
+        end();
+        if (!shouldCommit()) return;
+        this.kind = kind;
+        depth = result.getDepth();
+        Move best = result.getBestMove();
+        bestMove = best == null ? -1 : best.getRow() * Board.SIZE + best.getCol();
+        nodes = result.getNodes();
+        SearchStats stats = result.getStats();
+        if (stats != null) {
+            leaves = stats.getLeaves();
+            cutoffs = stats.getCutoffs();
+            firstMoveCutoffs = stats.getCutoffs(0);
+            tableHits = stats.getTableHits();
+            tableMisses = stats.getTableMisses();
+            branchingFactor = stats.getEffectiveBranchingFactor();
+            evalTime = stats.getEvalNanos();
+        }
+        commit();
+    }
+}
@@ -0,0 +1,26 @@
+package TicTacToe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// One completed depth of searchIterative, for JDK Flight Recorder; the event's
+// duration is the time that depth took.
+@Name("TicTacToe.SearchIteration")
+@Label("Search Iteration")
+@Category({"TicTacToe", "Search"})
+@Description("One completed depth of an iterative-deepening search")
+class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    @Description("Nodes searched at this depth alone")
+    long nodes;
+
+    @Label("Best Score")
+    int bestScore;
+}
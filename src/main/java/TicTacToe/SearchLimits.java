@@ -0,0 +1,41 @@
+package TicTacToe;
+
+public class SearchLimits {
+
+    private final int maxDepth;
+    private final long timeMillis;
+    private final long maxNodes;
+
+    // timeMillis and maxNodes of 0 mean no limit
+    public SearchLimits(int maxDepth, long timeMillis, long maxNodes) {
+        if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be at least 1: " + maxDepth);
+        if (timeMillis < 0 || maxNodes < 0) throw new IllegalArgumentException("budgets must not be negative");
+        this.maxDepth = maxDepth;
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+
+        return new SearchLimits(Board.CELLS, timeMillis, 0);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+
+        return new SearchLimits(Board.CELLS, 0, maxNodes);
+    }
+
+    public int getMaxDepth() { return maxDepth; }
+    public long getTimeMillis() { return timeMillis; }
+    public long getMaxNodes() { return maxNodes; }
+
+    public boolean hasBudget() {
+
+        return timeMillis > 0 || maxNodes > 0;
+    }
+}
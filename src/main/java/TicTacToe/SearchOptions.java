@@ -0,0 +1,44 @@
+package TicTacToe;
+
+// How a SearchEngine searches, as opposed to how long (SearchLimits) or with
+// what evaluator.
+public class SearchOptions {
+
+    // 4096 entries, 64 KB per engine; more than the game has positions to search
+    public static final int DEFAULT_TABLE_BITS = 12;
+
+    private final boolean moveOrdering;
+    private final boolean pvs;
+    private final boolean aspiration;
+    private final boolean statistics;
+    private final int tableBits;
+
+    // pvs: null-window probes after the first move; aspiration: iterative
+    // searches probe each root move around its previous score first;
+    // statistics: every result carries a SearchStats
+    public SearchOptions(boolean moveOrdering, boolean pvs, boolean aspiration, boolean statistics, int tableBits) {
+        if (tableBits < 1 || tableBits > 30) throw new IllegalArgumentException("tableBits must be in 1..30: " + tableBits);
+        this.moveOrdering = moveOrdering;
+        this.pvs = pvs;
+        this.aspiration = aspiration;
+        this.statistics = statistics;
+        this.tableBits = tableBits;
+    }
+
+    // move ordering on, everything else off
+    public static SearchOptions defaults() {
+
+        return new SearchOptions(true, false, false, false, DEFAULT_TABLE_BITS);
+    }
+
+    public static SearchOptions withStatistics() {
+
+        return new SearchOptions(true, false, false, true, DEFAULT_TABLE_BITS);
+    }
+
+    public boolean isMoveOrdering() { return moveOrdering; }
+    public boolean isPvs() { return pvs; }
+    public boolean isAspiration() { return aspiration; }
+    public boolean isStatistics() { return statistics; }
+    public int getTableBits() { return tableBits; }
+}
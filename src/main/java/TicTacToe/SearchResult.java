@@ -0,0 +1,58 @@
+package TicTacToe;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResult {
+
+    private final Move bestMove;
+    private final List<Move> rootMoves;
+    private final List<Move> principalVariation;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final SearchStats stats;
+
+    public SearchResult(Move bestMove, List<Move> rootMoves, List<Move> principalVariation,
+                        int depth, long nodes, long elapsedNanos) {
+
+        this(bestMove, rootMoves, principalVariation, depth, nodes, elapsedNanos, null);
+    }
+
+    public SearchResult(Move bestMove, List<Move> rootMoves, List<Move> principalVariation,
+                        int depth, long nodes, long elapsedNanos, SearchStats stats) {
+        this.bestMove = bestMove;
+        this.rootMoves = Collections.unmodifiableList(rootMoves);
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.stats = stats;
+    }
+
+    // null when the position has no legal moves
+    public Move getBestMove() { return bestMove; }
+
+    public int getBestScore() {
+
+        return bestMove == null ? 0 : bestMove.getScore();
+    }
+
+    // every root move with its score, in generation order
+    public List<Move> getRootMoves() { return rootMoves; }
+
+    // best line from the root, starting with the best move
+    public List<Move> getPrincipalVariation() { return principalVariation; }
+
+    public int getDepth() { return depth; }
+    public long getNodes() { return nodes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getElapsedMillis() {
+
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    // null unless statistics were collected; answers from the tablebase have none
+    public SearchStats getStats() { return stats; }
+}
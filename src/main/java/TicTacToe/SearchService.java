@@ -0,0 +1,71 @@
+package TicTacToe;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Runs AI searches on a background thread and hands progress and results to
+// callbackExecutor (Platform::runLater in the UI). Every start() or cancel()
+// begins a new generation; callbacks from an older one are dropped on arrival,
+// so a search that outlives its game can never touch the new one.
+public class SearchService {
+
+    private final Executor callbackExecutor;
+    private final ExecutorService worker;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile AtomicBoolean currentStop;
+
+    public SearchService(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ai-search");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // searches iteratively within the engine's limits; onError receives anything
+    // the search throws, in place of the result
+    public void start(SearchEngine engine, Board board, Player humanPlayer, Player aiPlayer,
+                      Consumer<SearchResult> onProgress, Consumer<SearchResult> onResult,
+                      Consumer<Throwable> onError) {
+        cancel();
+        long gen = generation.get();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        currentStop = stop;
+        Board snapshot = new Board(board);
+
+        worker.execute(() -> {
+            try {
+                SearchResult result = engine.searchIterative(snapshot, humanPlayer, aiPlayer, engine.getLimits(), stop,
+                        partial -> deliver(gen, onProgress, partial));
+                if (!stop.get()) {
+                    deliver(gen, onResult, result);
+                }
+            } catch (Throwable e) {
+                deliver(gen, onError, e);
+            }
+        });
+    }
+
+    public void cancel() {
+        generation.incrementAndGet();
+        AtomicBoolean stop = currentStop;
+        if (stop != null) stop.set(true);
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private <T> void deliver(long gen, Consumer<T> target, T value) {
+        if (target == null) return;
+        callbackExecutor.execute(() -> {
+            if (generation.get() == gen) target.accept(value);
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package TicTacToe;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// What one search did: nodes, evaluated leaves, which child caused each beta
+// cutoff, transposition table hits, how long evaluation took against the whole
+// search, and the nodes and time of every completed iteration. Collected per thread when the engine's
+// SearchOptions ask for statistics or a JFR recording wants SearchEvent.
+public class SearchStats {
+
+    private final long nodes;
+    private final long leaves;
+    private final long[] cutoffsByMove;
+    private final long tableHits;
+    private final long tableMisses;
+    private final long tableStores;
+    private final long evalNanos;
+    private final long elapsedNanos;
+    private final int[] iterationDepth;
+    private final long[] iterationNodes;
+    private final long[] iterationNanos;
+
+    SearchStats(Counters counters, long nodes, long elapsedNanos, int iterations,
+                int[] iterationDepth, long[] iterationNodes, long[] iterationNanos) {
+        this.nodes = nodes;
+        this.leaves = counters.leaves;
+        this.cutoffsByMove = counters.cutoffs.clone();
+        this.tableHits = counters.tableHits;
+        this.tableMisses = counters.tableMisses;
+        this.tableStores = counters.tableStores;
+        this.evalNanos = counters.estimatedEvalNanos();
+        this.elapsedNanos = elapsedNanos;
+        this.iterationDepth = Arrays.copyOf(iterationDepth, iterations);
+        this.iterationNodes = Arrays.copyOf(iterationNodes, iterations);
+        this.iterationNanos = Arrays.copyOf(iterationNanos, iterations);
+    }
+
+    // mutable counters, one set per search thread and merged when tasks join
+    static final class Counters {
+        long leaves;
+        final long[] cutoffs = new long[Board.CELLS];
+        long tableHits;
+        long tableMisses;
+        long tableStores;
+        // only a sample of the leaves is timed, see estimatedEvalNanos
+        long timedLeaves;
+        long evalNanos;
+
+        void reset() {
+            leaves = 0;
+            timedLeaves = 0;
+            evalNanos = 0;
+            tableHits = 0;
+            tableMisses = 0;
+            tableStores = 0;
+            Arrays.fill(cutoffs, 0);
+        }
+
+        void add(Counters other) {
+            leaves += other.leaves;
+            timedLeaves += other.timedLeaves;
+            evalNanos += other.evalNanos;
+            tableHits += other.tableHits;
+            tableMisses += other.tableMisses;
+            tableStores += other.tableStores;
+            for (int i = 0; i < Board.CELLS; i++) cutoffs[i] += other.cutoffs[i];
+        }
+
+        // the timed leaves scaled up to all of them
+        long estimatedEvalNanos() {
+
+            return timedLeaves == 0 ? 0 : Math.round((double) evalNanos * leaves / timedLeaves);
+        }
+    }
+
+    public long getNodes() { return nodes; }
+    public long getLeaves() { return leaves; }
+
+    public long getCutoffs() {
+
+        return Arrays.stream(cutoffsByMove).sum();
+    }
+
+    // cutoffs caused by the child searched at moveIndex (0 is the first one tried)
+    public long getCutoffs(int moveIndex) {
+
+        return cutoffsByMove[moveIndex];
+    }
+
+    // share of cutoffs found by the first child; near 1 means ordering works
+    public double getFirstMoveCutoffRate() {
+        long total = getCutoffs();
+        return total == 0 ? 0.0 : (double) cutoffsByMove[0] / total;
+    }
+
+    // probes that found an entry for the position, whatever its depth
+    public long getTableHits() { return tableHits; }
+    public long getTableMisses() { return tableMisses; }
+    // entries written; a store that loses to a deeper entry is not counted
+    public long getTableStores() { return tableStores; }
+
+    public double getTableHitRate() {
+        long probes = tableHits + tableMisses;
+        return probes == 0 ? 0.0 : (double) tableHits / probes;
+    }
+
+    // nodes of the deepest completed iteration, to the power 1/depth
+    public double getEffectiveBranchingFactor() {
+        int last = iterationDepth.length - 1;
+        if (last < 0 || iterationNodes[last] <= 1) return 0.0;
+        return Math.pow(iterationNodes[last], 1.0 / iterationDepth[last]);
+    }
+
+    // estimated from a sample of the leaves; in searchParallel it is summed over
+    // every thread, so it can exceed the elapsed time
+    public long getEvalNanos() { return evalNanos; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    // everything but evaluation: move generation, ordering, the table, recursion
+    public long getSearchOverheadNanos() {
+
+        return Math.max(0, elapsedNanos - evalNanos);
+    }
+
+    // completed iterations: one for a fixed-depth search, one per depth for searchIterative
+    public int getIterations() { return iterationDepth.length; }
+
+    public int getIterationDepth(int i) { return iterationDepth[i]; }
+
+    // nodes searched in iteration i alone
+    public long getIterationNodes(int i) { return iterationNodes[i]; }
+    public long getIterationNanos(int i) { return iterationNanos[i]; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Nodes %d, leaves %d, branching %.2f%n",
+                nodes, leaves, getEffectiveBranchingFactor()));
+        sb.append(String.format(Locale.ROOT, "Cutoffs %d, %.0f%% on the first move%n",
+                getCutoffs(), getFirstMoveCutoffRate() * 100));
+        sb.append(String.format(Locale.ROOT, "Table %d hits of %d probes (%.0f%%), %d stores%n",
+                tableHits, tableHits + tableMisses, getTableHitRate() * 100, tableStores));
+        sb.append(String.format(Locale.ROOT, "Eval %.2f ms, search %.2f ms%n",
+                evalNanos / 1e6, getSearchOverheadNanos() / 1e6));
+        for (int i = 0; i < iterationDepth.length; i++) {
+            sb.append(String.format(Locale.ROOT, "Depth %d: %d nodes, %.2f ms%n",
+                    iterationDepth[i], iterationNodes[i], iterationNanos[i] / 1e6));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,257 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Plays engine-vs-engine games on several threads and writes every position
+// reached, as FeatureExtractor features plus a label for X, to a DatasetSink.
+// Workers hand rows over in batches through a bounded queue to a single writer
+// thread, so a slow disk holds the workers back instead of filling the heap.
+public class SelfPlayGenerator {
+
+    public enum Label {
+        // the final result for X: 1, 0 or -1
+        RESULT,
+        // the mover's search score for the move that led to the position, for
+        // X and divided by 10; positions without a score fall back to RESULT
+        SEARCH
+    }
+
+    // chooses a move for toMove on a board that is not finished
+    public interface Engine {
+        // the move, with its score for X set, or NO_SCORE when the engine has none
+        Move choose(Board board, Player toMove, Random rnd);
+    }
+
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    private static final int ROW_INTS = FeatureExtractor.COUNT + 1;
+    private static final int BATCH_ROWS = 4096;
+    private static final int[] END = new int[0];
+    private static final long REPORT_NANOS = 2_000_000_000L;
+
+    private final Engine xEngine;
+    private final Engine oEngine;
+    private final int openingPlies;
+    private final Label label;
+    private final long seed;
+
+    // the first openingPlies moves of every game are random, so games differ
+    public SelfPlayGenerator(Engine xEngine, Engine oEngine, int openingPlies, Label label, long seed) {
+        if (openingPlies < 0) throw new IllegalArgumentException("openingPlies must not be negative: " + openingPlies);
+        this.xEngine = xEngine;
+        this.oEngine = oEngine;
+        this.openingPlies = openingPlies;
+        this.label = label;
+        this.seed = seed;
+    }
+
+    // uses whichever evaluator AlphaBeta is configured with
+    public static Engine alphaBeta(int depth) {
+
+        return (board, toMove, rnd) -> scoredForX(AlphaBeta.search(board, toMove.opposite(), toMove, depth), toMove);
+    }
+
+    // a SearchEngine per worker thread, all over the one evaluator
+    public static Engine search(BoardEvaluator evaluator, int depth) {
+        ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(
+                () -> new SearchEngine(evaluator, SearchLimits.depth(depth)));
+        return (board, toMove, rnd) -> scoredForX(engines.get().search(board, toMove.opposite(), toMove, depth), toMove);
+    }
+
+    private static Move scoredForX(SearchResult result, Player toMove) {
+        Move best = result.getBestMove();
+        // search scores are for the side that moves next
+        int forX = toMove == Player.O ? best.getScore() : -best.getScore();
+        Move m = new Move(best.getRow(), best.getCol());
+        m.setScore(forX);
+        return m;
+    }
+
+    // one ply: the move whose resulting position evaluates best for the mover
+    public static Engine greedy(BoardEvaluator evaluator) {
+        return (board, toMove, rnd) -> {
+            int[] moves = new int[Board.CELLS];
+            int count = board.generateMoves(moves);
+            int bestIdx = -1;
+            int bestForX = 0;
+            int ties = 0;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i], toMove);
+                int forX = evaluator.evaluate(board, Player.X);
+                board.unmakeMove(moves[i]);
+
+                int cmp = bestIdx < 0 ? 1 : toMove == Player.X ? Integer.compare(forX, bestForX) : Integer.compare(bestForX, forX);
+                if (cmp > 0) {
+                    bestIdx = moves[i];
+                    bestForX = forX;
+                    ties = 1;
+                } else if (cmp == 0 && rnd.nextInt(++ties) == 0) {
+                    bestIdx = moves[i];
+                }
+            }
+            Move m = new Move(bestIdx / Board.SIZE, bestIdx % Board.SIZE);
+            m.setScore(bestForX);
+            return m;
+        };
+    }
+
+    public static Engine random() {
+
+        return SelfPlayGenerator::randomMove;
+    }
+
+    private static Move randomMove(Board board, Player toMove, Random rnd) {
+        int[] moves = new int[Board.CELLS];
+        int idx = moves[rnd.nextInt(board.generateMoves(moves))];
+        Move m = new Move(idx / Board.SIZE, idx % Board.SIZE);
+        m.setScore(NO_SCORE);
+        return m;
+    }
+
+    // plays games on threads workers and returns the number of positions written
+    public long run(int games, int threads, DatasetSink sink) throws IOException, InterruptedException {
+        BlockingQueue<int[]> queue = new ArrayBlockingQueue<>(threads * 4);
+        AtomicLong nextGame = new AtomicLong();
+        AtomicLong positions = new AtomicLong();
+        // the first thing that went wrong on any thread, rethrown by run
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        Thread writer = new Thread(() -> {
+            int[] row = new int[FeatureExtractor.COUNT];
+            long nextReport = start + REPORT_NANOS;
+            try {
+                for (int[] batch = queue.take(); batch != END; batch = queue.take()) {
+                    // after a failure keep draining so workers are never stuck on put()
+                    if (failure.get() != null) continue;
+                    try {
+                        for (int r = 0; r < batch.length; r += ROW_INTS) {
+                            System.arraycopy(batch, r, row, 0, FeatureExtractor.COUNT);
+                            sink.append(row, batch[r + FeatureExtractor.COUNT]);
+                        }
+                    } catch (IOException | RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                        continue;
+                    }
+                    long written = positions.addAndGet(batch.length / ROW_INTS);
+                    long now = System.nanoTime();
+                    if (now >= nextReport) {
+                        report(nextGame.get(), written, now - start);
+                        nextReport = now + REPORT_NANOS;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "self-play-writer");
+        writer.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                int[] batch = new int[BATCH_ROWS * ROW_INTS];
+                int used = 0;
+                int[][] rows = new int[Board.CELLS][ROW_INTS];
+                try {
+                    // once anything failed the remaining games are not worth playing
+                    for (long g = nextGame.getAndIncrement(); g < games && failure.get() == null;
+                         g = nextGame.getAndIncrement()) {
+                        int n = playGame(new Random(seed + g), rows);
+                        for (int i = 0; i < n; i++) {
+                            if (used == batch.length) {
+                                queue.put(batch);
+                                batch = new int[BATCH_ROWS * ROW_INTS];
+                                used = 0;
+                            }
+                            System.arraycopy(rows[i], 0, batch, used, ROW_INTS);
+                            used += ROW_INTS;
+                        }
+                    }
+                    if (used > 0) queue.put(Arrays.copyOf(batch, used));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        queue.put(END);
+        writer.join();
+
+        Throwable f = failure.get();
+        if (f instanceof IOException) throw (IOException) f;
+        if (f instanceof RuntimeException) throw (RuntimeException) f;
+        if (f instanceof Error) throw (Error) f;
+        report(Math.min(nextGame.get(), games), positions.get(), System.nanoTime() - start);
+        return positions.get();
+    }
+
+    private static void report(long games, long positions, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%d games, %d positions, %.0f positions/s%n", games, positions, positions / seconds);
+    }
+
+    // fills rows with one features+label row per position and returns how many
+    private int playGame(Random rnd, int[][] rows) {
+        Board board = new Board();
+        Player toMove = Player.X;
+        int[] scores = new int[Board.CELLS];
+        int n = 0;
+
+        while (!board.isTerminal()) {
+            Move move = n < openingPlies ? randomMove(board, toMove, rnd)
+                    : (toMove == Player.X ? xEngine : oEngine).choose(board, toMove, rnd);
+            board.makeMove(move.getRow() * Board.SIZE + move.getCol(), toMove);
+            FeatureExtractor.extract(board, rows[n]);
+            scores[n] = move.getScore();
+            n++;
+            toMove = toMove.opposite();
+        }
+
+        Player winner = board.getWinner();
+        int result = winner == Player.X ? 1 : winner == Player.O ? -1 : 0;
+        for (int i = 0; i < n; i++) {
+            rows[i][FeatureExtractor.COUNT] = label == Label.SEARCH && scores[i] != NO_SCORE
+                    ? searchLabel(scores[i]) : result;
+        }
+        return n;
+    }
+
+    // keeps the sign even when the score rounds to 0
+    private static int searchLabel(int scoreForX) {
+        int scaled = (int) Math.max(-100, Math.min(100, Math.round(scoreForX / 10.0)));
+        return scaled != 0 ? scaled : Integer.signum(scoreForX);
+    }
+
+    // SelfPlayGenerator <games> <out.csv|out.bin> [threads] [depth] [openingPlies] [result|search]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: SelfPlayGenerator <games> <out.csv|out.bin> [threads] [depth] [openingPlies] [result|search]");
+            System.exit(2);
+        }
+        int games = Integer.parseInt(args[0]);
+        Path out = Path.of(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : Board.CELLS;
+        int opening = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        Label label = args.length > 5 ? Label.valueOf(args[5].toUpperCase()) : Label.SEARCH;
+
+        SelfPlayGenerator gen = new SelfPlayGenerator(alphaBeta(depth), alphaBeta(depth), opening, label, 1);
+        try (DatasetSink sink = out.toString().endsWith(".csv") ? new CsvDatasetWriter(out) : BinaryDatasetWriter.open(out)) {
+            gen.run(games, threads, sink);
+        }
+    }
+}
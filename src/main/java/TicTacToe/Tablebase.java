@@ -0,0 +1,157 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Game-theoretic value of every position reachable from the empty board with X
+// moving first, solved backwards from the finished games. One short per board
+// state index: optimal move mask (bits 0-8), plies to the end (9-12) and the
+// value for the side to move (13-14); 0 means the position is not reachable.
+public class Tablebase {
+
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    private static final int DISTANCE_SHIFT = Board.CELLS;
+    private static final int VALUE_SHIFT = Board.CELLS + 4;
+
+    // file: magic, version, entry count, then one big-endian short per state
+    private static final int FILE_MAGIC = 0x54545442; // "TTTB"
+    private static final short FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 4;
+
+    private final ByteBuffer entries;
+    private final int offset;
+
+    private Tablebase(ByteBuffer entries, int offset) {
+        this.entries = entries;
+        this.offset = offset;
+    }
+
+    public static Tablebase solve() {
+        if (Board.CELLS + 6 > Short.SIZE) {
+            throw new UnsupportedOperationException("Tablebase entries only fit boards up to 3x3");
+        }
+        boolean[] reachable = new boolean[Board.STATES];
+        markReachable(0, 0, reachable);
+
+        short[] table = new short[Board.STATES];
+        // a move adds a piece, so solving fuller boards first means every
+        // child is already known when its parent is reached
+        for (int pieces = Board.CELLS; pieces >= 0; pieces--) {
+            for (int x = 0; x <= Board.FULL_MASK; x++) {
+                for (int o = 0; o <= Board.FULL_MASK; o++) {
+                    if ((x & o) != 0 || Integer.bitCount(x | o) != pieces) continue;
+                    int index = Board.stateIndex(x, o);
+                    if (reachable[index]) table[index] = solveOne(x, o, table);
+                }
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(Board.STATES * 2);
+        for (short e : table) buf.putShort(e);
+        return new Tablebase(buf, 0);
+    }
+
+    private static void markReachable(int x, int o, boolean[] reachable) {
+        int index = Board.stateIndex(x, o);
+        if (reachable[index]) return;
+        reachable[index] = true;
+        if (Board.hasLine(x) || Board.hasLine(o)) return;
+
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        for (int empty = ~(x | o) & Board.FULL_MASK; empty != 0; empty &= empty - 1) {
+            int b = empty & -empty;
+            if (xToMove) markReachable(x | b, o, reachable);
+            else markReachable(x, o | b, reachable);
+        }
+    }
+
+    private static short solveOne(int x, int o, short[] table) {
+        // the player who just moved is the only one who can have a line
+        if (Board.hasLine(x) || Board.hasLine(o)) return pack(LOSS, 0, 0);
+        if ((x | o) == Board.FULL_MASK) return pack(DRAW, 0, 0);
+
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        int bestRank = Integer.MIN_VALUE;
+        int bestDistance = 0;
+        int bestMoves = 0;
+
+        for (int empty = ~(x | o) & Board.FULL_MASK; empty != 0; empty &= empty - 1) {
+            int b = empty & -empty;
+            int child = xToMove ? Board.stateIndex(x | b, o) : Board.stateIndex(x, o | b);
+            int childValue = valueOf(table[child]);
+            int distance = distanceOf(table[child]) + 1;
+
+            // fastest win, then draw, then the longest loss
+            int rank;
+            if (childValue == LOSS) rank = 100 - distance;
+            else if (childValue == DRAW) rank = 0;
+            else rank = -100 + distance;
+
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestDistance = distance;
+                bestMoves = b;
+            } else if (rank == bestRank) {
+                bestMoves |= b;
+            }
+        }
+
+        int value = bestRank > 0 ? WIN : bestRank == 0 ? DRAW : LOSS;
+        return pack(value, bestDistance, bestMoves);
+    }
+
+    private static short pack(int value, int distance, int moves) {
+
+        return (short) ((value << VALUE_SHIFT) | (distance << DISTANCE_SHIFT) | moves);
+    }
+
+    // returns the entry for board with toMove to play, or 0 if it is not in the table
+    public int probe(Board board, Player toMove) {
+        boolean xToMove = Integer.bitCount(board.getXMask()) == Integer.bitCount(board.getOMask());
+        if (toMove != (xToMove ? Player.X : Player.O)) return 0;
+        return entries.getShort(offset + 2 * board.stateIndex()) & 0xFFFF;
+    }
+
+    public static int valueOf(int entry) { return (entry >>> VALUE_SHIFT) & 0x3; }
+    public static int distanceOf(int entry) { return (entry >>> DISTANCE_SHIFT) & 0xF; }
+    public static int optimalMovesOf(int entry) { return entry & Board.FULL_MASK; }
+
+    public void write(Path path) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + Board.STATES * 2).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(FILE_MAGIC).putShort(FILE_VERSION).putInt(Board.STATES);
+        for (int i = 0; i < Board.STATES; i++) out.putShort(entries.getShort(offset + 2 * i));
+        out.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) ch.write(out);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // maps the file read-only; entries are read straight from the page cache
+    public static Tablebase map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size != HEADER_BYTES + Board.STATES * 2L) {
+                throw new IOException("Unexpected tablebase size " + size + " in " + path);
+            }
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt(0) != FILE_MAGIC || map.getShort(4) != FILE_VERSION || map.getInt(6) != Board.STATES) {
+                throw new IOException("Not a tablebase file of this version: " + path);
+            }
+            return new Tablebase(map, HEADER_BYTES);
+        }
+    }
+}
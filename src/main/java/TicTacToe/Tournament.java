@@ -0,0 +1,346 @@
+package TicTacToe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Engine-vs-engine matches between every pair of entrants, played on several
+// threads. Games come in pairs: both open with the same seeded random moves,
+// then each entrant plays once as X and once as O, so neither the opening nor
+// the first move favours one side. Workers keep their own tallies and engines
+// and only share the game counter, so runs scale to millions of games.
+public class Tournament {
+
+    // a kind of engine; every worker makes its own. name is what the report calls it
+    public static final class Entrant {
+        final String name;
+        final Supplier<? extends MoveSearcher> engines;
+
+        public Entrant(String name, Supplier<? extends MoveSearcher> engines) {
+            this.name = name;
+            this.engines = engines;
+        }
+
+        // alpha-beta over evaluator
+        public Entrant(String name, BoardEvaluator evaluator, SearchLimits limits) {
+
+            this(name, () -> new SearchEngine(evaluator, limits));
+        }
+
+        public String getName() { return name; }
+
+        @Override
+        public String toString() {
+
+            return name;
+        }
+    }
+
+    // one pairing, from a's side: a win is a win for a
+    public static final class Result {
+        final Entrant a;
+        final Entrant b;
+        long wins;
+        long draws;
+        long losses;
+        long aMoves;
+        long aThinkNanos;
+        long bMoves;
+        long bThinkNanos;
+        long nodes;
+
+        Result(Entrant a, Entrant b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        void add(Result other) {
+            wins += other.wins;
+            draws += other.draws;
+            losses += other.losses;
+            aMoves += other.aMoves;
+            aThinkNanos += other.aThinkNanos;
+            bMoves += other.bMoves;
+            bThinkNanos += other.bThinkNanos;
+            nodes += other.nodes;
+        }
+
+        public Entrant getA() { return a; }
+        public Entrant getB() { return b; }
+        public long getWins() { return wins; }
+        public long getDraws() { return draws; }
+        public long getLosses() { return losses; }
+        // searched by both sides; an MCTS move counts its iterations
+        public long getNodes() { return nodes; }
+
+        public long getGames() {
+
+            return wins + draws + losses;
+        }
+
+        // points per game for a, a draw counting half
+        public double getScore() {
+
+            return getGames() == 0 ? 0.5 : (wins + 0.5 * draws) / getGames();
+        }
+
+        // a's rating minus b's
+        public double getElo() {
+
+            return elo(getScore());
+        }
+
+        // half-width of the 95% interval of the score, from the spread of game results
+        private double scoreMargin() {
+            long n = getGames();
+            if (n == 0) return 0.5;
+            double p = getScore();
+            double variance = (wins * (1 - p) * (1 - p) + draws * (0.5 - p) * (0.5 - p) + losses * p * p) / n;
+            return 1.96 * Math.sqrt(variance / n);
+        }
+
+        public double getEloLow() {
+
+            return elo(getScore() - scoreMargin());
+        }
+
+        public double getEloHigh() {
+
+            return elo(getScore() + scoreMargin());
+        }
+
+        public double getThinkMillisA() {
+
+            return aMoves == 0 ? 0 : aThinkNanos / 1e6 / aMoves;
+        }
+
+        public double getThinkMillisB() {
+
+            return bMoves == 0 ? 0 : bThinkNanos / 1e6 / bMoves;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s vs %s: +%d =%d -%d, score %.1f%%, Elo %s [%s, %s], think %.3f / %.3f ms/move",
+                    a, b, wins, draws, losses, 100 * getScore(),
+                    formatElo(getElo()), formatElo(getEloLow()), formatElo(getEloHigh()),
+                    getThinkMillisA(), getThinkMillisB());
+        }
+    }
+
+    // infinite when the score is 0 or 1
+    static double elo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private static String formatElo(double elo) {
+        if (Double.isInfinite(elo)) return elo > 0 ? "+inf" : "-inf";
+        return String.format(Locale.ROOT, "%+d", Math.round(elo));
+    }
+
+    private static final long REPORT_NANOS = 2_000_000_000L;
+
+    private final List<Entrant> entrants;
+    private final int openingPlies;
+    private final long seed;
+
+    // the first openingPlies moves of every game are random; 4 or fewer never end it
+    public Tournament(List<Entrant> entrants, int openingPlies, long seed) {
+        if (entrants.size() < 2) throw new IllegalArgumentException("at least two entrants are needed");
+        if (openingPlies < 0) throw new IllegalArgumentException("openingPlies must not be negative: " + openingPlies);
+        this.entrants = new ArrayList<>(entrants);
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+    }
+
+    // plays games games, rounded up to an even number, for every pair of entrants
+    public List<Result> run(long games, int threads) throws InterruptedException {
+        List<Entrant[]> pairs = new ArrayList<>();
+        for (int i = 0; i < entrants.size(); i++) {
+            for (int j = i + 1; j < entrants.size(); j++) {
+                pairs.add(new Entrant[]{entrants.get(i), entrants.get(j)});
+            }
+        }
+        long perPair = (games + 1) / 2 * 2;
+        long total = perPair * pairs.size();
+        AtomicLong nextGame = new AtomicLong();
+        List<Result[]> tallies = new ArrayList<>();
+        // the first thing that went wrong on any worker, rethrown by run
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            Result[] tally = newResults(pairs);
+            tallies.add(tally);
+            pool.execute(() -> {
+                try {
+                    // a worker's own engines, one per entrant
+                    MoveSearcher[] engines = new MoveSearcher[entrants.size()];
+                    for (int e = 0; e < engines.length; e++) engines[e] = entrants.get(e).engines.get();
+                    // pairs follow each other, so neighbouring games mostly share a pairing;
+                    // once anything failed the remaining games are not worth playing
+                    for (long g = nextGame.getAndIncrement(); g < total && failure.get() == null;
+                         g = nextGame.getAndIncrement()) {
+                        int p = (int) (g / perPair);
+                        long game = g % perPair;
+                        Entrant[] pair = pairs.get(p);
+                        playGame(engines[entrants.indexOf(pair[0])], engines[entrants.indexOf(pair[1])],
+                                game % 2 == 0, new Random(seed + p * perPair + game / 2), tally[p]);
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(REPORT_NANOS, TimeUnit.NANOSECONDS)) {
+            report(Math.min(nextGame.get(), total), total, System.nanoTime() - start);
+        }
+
+        // the tallies would be short of games, so there is no result to return
+        Throwable f = failure.get();
+        if (f instanceof RuntimeException) throw (RuntimeException) f;
+        if (f instanceof Error) throw (Error) f;
+
+        Result[] results = newResults(pairs);
+        for (Result[] tally : tallies) {
+            for (int p = 0; p < results.length; p++) results[p].add(tally[p]);
+        }
+        return List.of(results);
+    }
+
+    private static Result[] newResults(List<Entrant[]> pairs) {
+        Result[] results = new Result[pairs.size()];
+        for (int p = 0; p < results.length; p++) results[p] = new Result(pairs.get(p)[0], pairs.get(p)[1]);
+        return results;
+    }
+
+    private static void report(long done, long total, long elapsedNanos) {
+
+        System.out.printf(Locale.ROOT, "%d / %d games, %.0f games/s%n", done, total, done / (elapsedNanos / 1e9));
+    }
+
+    // a plays X when aIsX; rnd chooses the opening
+    private void playGame(MoveSearcher a, MoveSearcher b, boolean aIsX, Random rnd, Result result) {
+        // nothing carried over from the last game keeps results independent of which worker played it
+        a.newGame();
+        b.newGame();
+        Board board = new Board();
+        Player toMove = Player.X;
+        int[] moves = new int[Board.CELLS];
+
+        for (int ply = 0; !board.isTerminal(); ply++) {
+            int cell;
+            if (ply < openingPlies) {
+                cell = moves[rnd.nextInt(board.generateMoves(moves))];
+            } else {
+                boolean aMoves = (toMove == Player.X) == aIsX;
+                SearchResult r = (aMoves ? a : b).search(board, toMove.opposite(), toMove);
+                Move best = r.getBestMove();
+                cell = best.getRow() * Board.SIZE + best.getCol();
+                if (aMoves) {
+                    result.aMoves++;
+                    result.aThinkNanos += r.getElapsedNanos();
+                } else {
+                    result.bMoves++;
+                    result.bThinkNanos += r.getElapsedNanos();
+                }
+                result.nodes += r.getNodes();
+            }
+            board.makeMove(cell, toMove);
+            toMove = toMove.opposite();
+        }
+
+        Player winner = board.getWinner();
+        if (winner == Player.EMPTY) result.draws++;
+        else if ((winner == Player.X) == aIsX) result.wins++;
+        else result.losses++;
+    }
+
+    // entrants are evaluator:depth[:millis], e.g. classic:9, ml:4 or nnue:9:20;
+    // millis gives each move a time budget searched by iterative deepening.
+    // mcts:iterations[:millis] is tree search instead, mcts+ml:... with the ml
+    // evaluator as its prior; iterations of 0 leave only the time budget
+    static Entrant parseEntrant(String spec, Map<String, BoardEvaluator> evaluators) {
+        String[] parts = spec.split(":");
+        if (parts[0].equals("mcts") || parts[0].startsWith("mcts+")) {
+            String priorName = parts[0].equals("mcts") ? null : parts[0].substring("mcts+".length());
+            BoardEvaluator prior = priorName == null ? null : evaluators.get(priorName);
+            if (priorName != null && prior == null) {
+                throw new IllegalArgumentException("no evaluator " + priorName + ", have " + evaluators.keySet());
+            }
+            long iterations = parts.length > 1 ? Long.parseLong(parts[1]) : MctsEngine.DEFAULT_ITERATIONS;
+            long millis = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+            SearchLimits limits = new SearchLimits(Board.CELLS, millis, iterations);
+            // games already run in parallel, so each tree gets one thread
+            return new Entrant(spec, () -> new MctsEngine(limits, prior, 1, MctsEngine.DEFAULT_CAPACITY));
+        }
+        BoardEvaluator evaluator = evaluators.get(parts[0]);
+        if (evaluator == null) throw new IllegalArgumentException("no evaluator " + parts[0] + ", have " + evaluators.keySet());
+        int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : Board.CELLS;
+        long millis = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+        return new Entrant(spec, evaluator, new SearchLimits(depth, millis, 0));
+    }
+
+    // Tournament <games per pair> <entrant> <entrant>... [-threads n] [-opening plies] [-seed s]
+    //            [-ml weights] [-nnue weights]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("usage: Tournament <games per pair> <entrant> <entrant>... [-threads n] [-opening plies] [-seed s]"
+                    + " [-ml weights] [-nnue weights]; entrants are evaluator:depth[:millis] or mcts[+evaluator]:iterations[:millis]");
+            System.exit(2);
+        }
+        long games = Long.parseLong(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int opening = 2;
+        long seed = 1;
+        Path ml = Path.of("tictactoe_model.bin");
+        Path nnue = Path.of("tictactoe.nnue");
+        List<String> specs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-opening": opening = Integer.parseInt(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-ml": ml = Path.of(args[++i]); break;
+                case "-nnue": nnue = Path.of(args[++i]); break;
+                default: specs.add(args[i]);
+            }
+        }
+
+        // weights that are not there just leave their evaluator out
+        Map<String, BoardEvaluator> evaluators = GameServer.loadEvaluators(
+                Files.exists(ml) ? ml : null, Files.exists(nnue) ? nnue : null);
+        List<Entrant> entrants = new ArrayList<>();
+        for (String spec : specs) entrants.add(parseEntrant(spec, evaluators));
+
+        Tournament tournament = new Tournament(entrants, opening, seed);
+        long start = System.nanoTime();
+        List<Result> results = tournament.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long played = 0;
+        long nodes = 0;
+        for (Result r : results) {
+            System.out.println(r);
+            played += r.getGames();
+            nodes += r.getNodes();
+        }
+        System.out.printf(Locale.ROOT, "%d games in %.1f s on %d threads, %.0f games/s, %.0f nodes/s%n",
+                played, seconds, threads, played / seconds, nodes / seconds);
+    }
+}
@@ -0,0 +1,36 @@
+package TicTacToe;
+
+public class TrainingOptions {
+
+    private final int epochs;
+    private final double learningRate;
+    private final int batchSize;
+    private final int patience;
+
+    // patience is how many epochs the validation loss may go without improving
+    // before training stops; 0 always runs every epoch
+    public TrainingOptions(int epochs, double learningRate, int batchSize, int patience) {
+        if (epochs < 1) throw new IllegalArgumentException("epochs must be at least 1: " + epochs);
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        if (patience < 0) throw new IllegalArgumentException("patience must not be negative: " + patience);
+        if (!(learningRate > 0)) throw new IllegalArgumentException("learningRate must be positive: " + learningRate);
+        this.epochs = epochs;
+        this.learningRate = learningRate;
+        this.batchSize = batchSize;
+        this.patience = patience;
+    }
+
+    // plain per-sample SGD for a fixed number of epochs. Not bit-for-bit the
+    // trainer MLModel used to have: rows are reshuffled every epoch rather than
+    // once, and the hidden-layer gradient uses w2 from before the sample's
+    // update rather than after it
+    public static TrainingOptions sgd(int epochs, double learningRate) {
+
+        return new TrainingOptions(epochs, learningRate, 1, 0);
+    }
+
+    public int getEpochs() { return epochs; }
+    public double getLearningRate() { return learningRate; }
+    public int getBatchSize() { return batchSize; }
+    public int getPatience() { return patience; }
+}
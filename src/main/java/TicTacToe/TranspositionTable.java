@@ -0,0 +1,76 @@
+package TicTacToe;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    public static final int NO_MOVE = -1;
+
+    // packed entry: score (32) | depth (8) | bound (2) | move + 1 (16) | age (6)
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int AGE_SHIFT = 58;
+
+    // each slot keeps key ^ data next to data, so a torn write from another
+    // thread fails the key check instead of returning a mixed entry
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int age = 0;
+
+    public TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    // returns the packed entry for key, or 0 when there is none
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long d = data[i];
+        return d != 0 && (keys[i] ^ d) == key ? d : 0L;
+    }
+
+    // returns false when the slot's entry was kept instead
+    public boolean store(long key, int depth, int score, int bound, int move) {
+        int i = (int) key & mask;
+        long old = data[i];
+
+        // depth-preferred, but entries from earlier searches always give way
+        if (old != 0 && (keys[i] ^ old) != key
+                && ageOf(old) == age && depthOf(old) > depth) {
+            return false;
+        }
+
+        long d = (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) ((move + 1) & 0xFFFF) << MOVE_SHIFT)
+                | ((long) age << AGE_SHIFT);
+        data[i] = d;
+        keys[i] = key ^ d;
+        return true;
+    }
+
+    public void newSearch() {
+
+        age = (age + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public static int scoreOf(long entry) { return (int) entry; }
+    public static int depthOf(long entry) { return (int) (entry >>> DEPTH_SHIFT) & 0xFF; }
+    public static int boundOf(long entry) { return (int) (entry >>> BOUND_SHIFT) & 0x3; }
+    public static int moveOf(long entry) { return ((int) (entry >>> MOVE_SHIFT) & 0xFFFF) - 1; }
+    private static int ageOf(long entry) { return (int) (entry >>> AGE_SHIFT) & 0x3F; }
+}
@@ -0,0 +1,42 @@
+package TicTacToe;
+
+import java.util.Random;
+
+public final class Zobrist {
+
+    private static final long[] X_KEYS = new long[Board.CELLS];
+    private static final long[] O_KEYS = new long[Board.CELLS];
+    private static final long X_TO_MOVE;
+    private static final long X_IS_HUMAN;
+
+    static {
+        // fixed seed so hashes are stable between runs
+        Random rnd = new Random(0x5EEDL);
+        for (int i = 0; i < Board.CELLS; i++) {
+            X_KEYS[i] = rnd.nextLong();
+            O_KEYS[i] = rnd.nextLong();
+        }
+        X_TO_MOVE = rnd.nextLong();
+        X_IS_HUMAN = rnd.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long cell(int index, Player p) {
+        if (p == Player.X) return X_KEYS[index];
+        if (p == Player.O) return O_KEYS[index];
+        return 0L;
+    }
+
+    public static long toMove(Player p) {
+
+        return p == Player.X ? X_TO_MOVE : 0L;
+    }
+
+    // scores are stored from the human's point of view, so it is part of the key
+    public static long perspective(Player humanPlayer) {
+
+        return humanPlayer == Player.X ? X_IS_HUMAN : 0L;
+    }
+}
@@ -11,6 +11,7 @@ module com.example.tictactoe {
     requires eu.hansolo.tilesfx;
     requires com.almasb.fxgl.all;
     requires javafx.graphics;
+    requires jdk.jfr;
 
     opens TicTacToe to javafx.fxml;
     exports TicTacToe;
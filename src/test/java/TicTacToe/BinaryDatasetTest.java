@@ -0,0 +1,119 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryDatasetTest {
+
+    private static final int FEATURES = Dataset.FEATURES;
+
+    private static int[][] randomRows(int count, long seed) {
+        Random rnd = new Random(seed);
+        int[][] rows = new int[count][FEATURES + 1];
+        for (int[] row : rows) {
+            for (int k = 0; k <= FEATURES; k++) row[k] = rnd.nextInt(256) + Byte.MIN_VALUE;
+        }
+        return rows;
+    }
+
+    private static void append(BinaryDatasetWriter writer, int[][] rows) throws IOException {
+        int[] features = new int[FEATURES];
+        for (int[] row : rows) {
+            System.arraycopy(row, 0, features, 0, FEATURES);
+            writer.append(features, row[FEATURES]);
+        }
+    }
+
+    private static void assertRows(int[][] expected, int from, BinaryDataset data) {
+        ByteBuffer buffer = data.getBuffer();
+        for (int r = 0; r < expected.length; r++) {
+            int row = from + r;
+            for (int k = 0; k < FEATURES; k++) {
+                assertEquals(expected[r][k], data.feature(row, k), "row " + row + " feature " + k);
+                assertEquals(expected[r][k], buffer.get(row * BinaryDataset.ROW_BYTES + k));
+            }
+            assertEquals(expected[r][FEATURES], data.label(row), "row " + row + " label");
+        }
+    }
+
+    @Test
+    void rowsSurviveTheRoundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("rows.ttds");
+        int[][] rows = randomRows(10_000, 3);
+        try (BinaryDatasetWriter writer = BinaryDatasetWriter.open(file)) {
+            append(writer, rows);
+        }
+
+        BinaryDataset data = BinaryDataset.map(file);
+        assertEquals(rows.length, data.getRows());
+        assertRows(rows, 0, data);
+        assertEquals(BinaryDataset.HEADER_BYTES + rows.length * BinaryDataset.ROW_BYTES, Files.size(file));
+    }
+
+    @Test
+    void reopeningAppendsAndDropsAnUnflushedTail(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("rows.ttds");
+        int[][] first = randomRows(100, 4);
+        int[][] second = randomRows(50, 5);
+        try (BinaryDatasetWriter writer = BinaryDatasetWriter.open(file)) {
+            append(writer, first);
+        }
+        // bytes a crashed writer left past the last flushed row
+        Files.write(file, new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (BinaryDatasetWriter writer = BinaryDatasetWriter.open(file)) {
+            assertEquals(first.length, writer.getRows());
+            append(writer, second);
+        }
+
+        BinaryDataset data = BinaryDataset.map(file);
+        assertEquals(first.length + second.length, data.getRows());
+        assertRows(first, 0, data);
+        assertRows(second, first.length, data);
+    }
+
+    @Test
+    void convertedCsvHoldsTheSameRows(@TempDir Path dir) throws IOException {
+        Path csv = Path.of("src/main/resources/tictactoe_dataset.csv");
+        Path file = dir.resolve("dataset.ttds");
+        Dataset expected = CsvDatasetReader.load(csv);
+
+        assertEquals(expected.getRows(), BinaryDataset.convertCsv(csv, file));
+        BinaryDataset data = BinaryDataset.map(file);
+        assertEquals(expected.getRows(), data.getRows());
+        for (int r = 0; r < expected.getRows(); r++) {
+            for (int k = 0; k < FEATURES; k++) {
+                assertEquals(expected.getFeatures()[r * FEATURES + k], data.feature(r, k), "row " + r);
+            }
+            assertEquals(expected.getLabels()[r], data.label(r), "row " + r);
+        }
+    }
+
+    @Test
+    void rejectsValuesThatDoNotFitAndForeignFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("rows.ttds");
+        try (BinaryDatasetWriter writer = BinaryDatasetWriter.open(file)) {
+            // the bad value comes last, after the rest of the row is buffered
+            assertThrows(IllegalArgumentException.class, () -> writer.append(new int[] {1, 2, 3, 4, 5, 6}, 128));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.append(new double[] {1, 2, 3, 4, 5, 6}, 0, 0.5));
+            writer.append(new int[] {7, 7, 7, 7, 7, 7}, 1);
+        }
+        BinaryDataset data = BinaryDataset.map(file);
+        assertEquals(1, data.getRows());
+        assertRows(new int[][] {{7, 7, 7, 7, 7, 7, 1}}, 0, data);
+
+        Path foreign = dir.resolve("foreign.ttds");
+        Files.write(foreign, new byte[BinaryDataset.HEADER_BYTES]);
+        assertThrows(IOException.class, () -> BinaryDataset.map(foreign));
+    }
+}
@@ -0,0 +1,122 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvDatasetReaderTest {
+
+    private static final int COLUMNS = Dataset.FEATURES + 1;
+
+    // the old loader: split each line and parse every field with Double.parseDouble
+    private static List<double[]> reference(List<String> lines) {
+        List<double[]> rows = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            String[] fields = line.split(",");
+            double[] row = new double[COLUMNS];
+            for (int k = 0; k < COLUMNS; k++) row[k] = Double.parseDouble(fields[k].trim());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void assertSameRows(List<double[]> expected, Dataset data) {
+        assertEquals(expected.size(), data.getRows());
+        for (int r = 0; r < expected.size(); r++) {
+            double[] row = expected.get(r);
+            for (int k = 0; k < Dataset.FEATURES; k++) {
+                // assertEquals on doubles compares bits, so -0.0 and 0.0 differ
+                assertEquals(row[k], data.getFeatures()[r * Dataset.FEATURES + k], "row " + r + " column " + k);
+            }
+            assertEquals(row[Dataset.FEATURES], data.getLabels()[r], "row " + r + " label");
+        }
+    }
+
+    private static String randomNumber(Random rnd) {
+        String sign = rnd.nextInt(4) == 0 ? "-" : rnd.nextInt(8) == 0 ? "+" : "";
+        switch (rnd.nextInt(5)) {
+            case 0:
+                return sign + rnd.nextInt(10);
+            case 1:
+                // up to 2^53, with the point anywhere
+                String digits = Long.toString(rnd.nextLong() >>> (11 + rnd.nextInt(50)));
+                int point = rnd.nextInt(digits.length() + 1);
+                return sign + digits.substring(0, point) + "." + digits.substring(point) + (point == digits.length() ? "0" : "");
+            case 2:
+                // too many digits for the fast path
+                return sign + "0." + Long.toString(Long.MAX_VALUE - rnd.nextInt(1000)) + rnd.nextInt(1000);
+            case 3:
+                return sign + rnd.nextInt(1000) + "e" + (rnd.nextInt(20) - 10);
+            default:
+                return sign + Double.toString(rnd.nextDouble() * Math.pow(10, rnd.nextInt(12) - 6));
+        }
+    }
+
+    @Test
+    void parsesLikeDoubleParseDouble(@TempDir Path dir) throws IOException {
+        Random rnd = new Random(5);
+        List<String> lines = new ArrayList<>();
+        lines.add("f1,f2,f3,f4,f5,f6,label");
+        for (int r = 0; r < 20_000; r++) {
+            StringBuilder line = new StringBuilder();
+            for (int k = 0; k < COLUMNS; k++) {
+                if (k > 0) line.append(',');
+                if (rnd.nextInt(20) == 0) line.append(' ');
+                line.append(randomNumber(rnd));
+            }
+            lines.add(line.toString());
+        }
+        Path csv = dir.resolve("numbers.csv");
+        Files.write(csv, lines);
+
+        assertSameRows(reference(lines), CsvDatasetReader.load(csv));
+    }
+
+    @Test
+    void bundledDatasetMatchesTheSplitLoader() throws IOException {
+        Path csv = Path.of("src/main/resources/tictactoe_dataset.csv");
+        assertSameRows(reference(Files.readAllLines(csv)), CsvDatasetReader.load(csv));
+    }
+
+    @Test
+    void skipsBadRowsAndReadsTheLastLineWithoutANewline(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("mixed.csv");
+        Files.writeString(csv, "header\r\n"
+                + "1,2,3,4,5,6,1\r\n"
+                + "\r\n"
+                + "1,2,x,4,5,6,1\r\n"
+                + "1,2,3,4,5,6\r\n"
+                + "1,2,3,4,5,6,7,8\r\n"
+                + "-0,0.5,1e1,4,5,6,-1");
+
+        Dataset data = CsvDatasetReader.load(csv);
+        assertEquals(2, data.getRows());
+        assertEquals(-0.0, data.getFeatures()[Dataset.FEATURES]);
+        assertEquals(10.0, data.getFeatures()[Dataset.FEATURES + 2]);
+        assertEquals(-1.0, data.getLabels()[1]);
+    }
+
+    @Test
+    void streamingHandsOverTheSameRows() throws IOException {
+        Path csv = Path.of("src/main/resources/tictactoe_dataset.csv");
+        Dataset whole = CsvDatasetReader.load(csv);
+        List<double[]> streamed = new ArrayList<>();
+        CsvDatasetReader.stream(csv, 97, (features, labels, rows) -> {
+            for (int r = 0; r < rows; r++) {
+                double[] row = new double[COLUMNS];
+                System.arraycopy(features, r * Dataset.FEATURES, row, 0, Dataset.FEATURES);
+                row[Dataset.FEATURES] = labels[r];
+                streamed.add(row);
+            }
+        });
+        assertSameRows(streamed, whole);
+    }
+}
@@ -0,0 +1,44 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class GameSessionTest {
+
+    @Test
+    void readsLinesWithEitherTerminator() throws IOException {
+        Reader in = new StringReader("NEW X\r\nMOVE 4\n\nQUIT");
+        StringBuilder buf = new StringBuilder();
+        assertEquals("NEW X", GameSession.readLine(in, buf));
+        assertEquals("MOVE 4", GameSession.readLine(in, buf));
+        assertEquals("", GameSession.readLine(in, buf));
+        assertEquals("QUIT", GameSession.readLine(in, buf));
+        assertNull(GameSession.readLine(in, buf));
+    }
+
+    @Test
+    void stopsReadingALineThatNeverEnds() throws IOException {
+        // a reader that never runs out and never sends a newline
+        Reader endless = new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                Arrays.fill(cbuf, off, off + len, 'a');
+                return len;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        String line = GameSession.readLine(endless, new StringBuilder());
+        assertEquals(GameSession.MAX_LINE + 1, line.length());
+        assertEquals("ERR line too long", new GameSession(null, null).handle(line));
+    }
+}
@@ -0,0 +1,68 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class IncrementalFeaturesTest {
+
+    private final int[] expected = new int[FeatureExtractor.COUNT];
+
+    private void assertMatchesExtract(Board board, IncrementalFeatures features) {
+        FeatureExtractor.extract(board, expected);
+        assertArrayEquals(expected, features.values(), "x=" + board.getXMask() + " o=" + board.getOMask());
+    }
+
+    // plays out every game from board, checking the features after each move and each undo;
+    // returns the number of positions visited
+    private long walk(Board board, Player toMove, IncrementalFeatures features, IncrementalFeatures fresh) {
+        fresh.reset(board);
+        assertArrayEquals(fresh.values(), features.values());
+        if (board.isTerminal()) return 1;
+
+        long visited = 1;
+        int[] moves = new int[Board.CELLS];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i], toMove);
+            features.add(moves[i], toMove);
+            assertMatchesExtract(board, features);
+            visited += walk(board, toMove.opposite(), features, fresh);
+
+            board.unmakeMove(moves[i]);
+            features.remove(moves[i], toMove);
+            assertMatchesExtract(board, features);
+        }
+        return visited;
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullExtractOverEveryGame() {
+        Board board = new Board();
+        IncrementalFeatures features = new IncrementalFeatures();
+        features.reset(board);
+        assertMatchesExtract(board, features);
+
+        // every position along every game, counted with repeats
+        assertEquals(549946, walk(board, Player.X, features, new IncrementalFeatures()));
+    }
+
+    @Test
+    void resetPicksUpABoardMidGame() {
+        Board board = new Board();
+        int[] cells = {4, 0, 8, 2};
+        for (int i = 0; i < cells.length; i++) board.makeMove(cells[i], i % 2 == 0 ? Player.X : Player.O);
+
+        IncrementalFeatures features = new IncrementalFeatures();
+        features.reset(board);
+        assertMatchesExtract(board, features);
+
+        board.makeMove(1, Player.X);
+        features.add(1, Player.X);
+        assertMatchesExtract(board, features);
+        // X holds the center and one corner with the middle column open,
+        // and has just blocked O's top row
+        assertArrayEquals(new int[]{3, 2, 1, 0, 1, 1}, features.values());
+    }
+}
@@ -0,0 +1,42 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MLTrainerTest {
+
+    private static final int ROWS = 200;
+
+    private static double[] params() {
+        double[] params = new double[MLModel.PARAM_COUNT];
+        Random rnd = new Random(1);
+        for (int p = 0; p < params.length; p++) params[p] = (rnd.nextDouble() - 0.5) * 0.5;
+        return params;
+    }
+
+    @Test
+    void rowsPastTheValidationSliceAreNeverRead() {
+        Random rnd = new Random(7);
+        double[] x = new double[2 * ROWS * MLModel.INPUT_SIZE];
+        double[] y = new double[2 * ROWS];
+        for (int i = 0; i < ROWS * MLModel.INPUT_SIZE; i++) x[i] = rnd.nextDouble();
+        for (int i = 0; i < ROWS; i++) y[i] = x[i * MLModel.INPUT_SIZE] > 0.5 ? 1.0 : -1.0;
+
+        double[] trimmed = params();
+        MLTrainer trainer = new MLTrainer(new TrainingOptions(200, 0.3, 16, 5));
+        trainer.train(trimmed, Arrays.copyOf(x, ROWS * MLModel.INPUT_SIZE), Arrays.copyOf(y, ROWS), ROWS, 180);
+
+        // a test split past n that would poison any loss it reached
+        Arrays.fill(x, ROWS * MLModel.INPUT_SIZE, x.length, Double.NaN);
+        Arrays.fill(y, ROWS, y.length, Double.NaN);
+        double[] padded = params();
+        trainer.train(padded, x, y, ROWS, 180);
+
+        assertArrayEquals(trimmed, padded);
+        for (double p : padded) assertTrue(Double.isFinite(p));
+    }
+}
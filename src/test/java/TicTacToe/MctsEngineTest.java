@@ -0,0 +1,87 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MctsEngineTest {
+
+    private static int cell(Move move) {
+
+        return move.getRow() * Board.SIZE + move.getCol();
+    }
+
+    // plays out a game from board, mcts moving for mctsSide and classic:9 for the other
+    private static Player play(Board board, Player toMove, MoveSearcher mcts, MoveSearcher classic, Player mctsSide) {
+        while (!board.isTerminal()) {
+            MoveSearcher engine = toMove == mctsSide ? mcts : classic;
+            board.makeMove(cell(engine.findBestMove(board, toMove.opposite(), toMove)), toMove);
+            toMove = toMove.opposite();
+        }
+        return board.getWinner();
+    }
+
+    @Test
+    void neverLosesToClassicAtFullDepth() {
+        MctsEngine mcts = new MctsEngine(SearchLimits.nodes(MctsEngine.DEFAULT_ITERATIONS));
+        SearchEngine classic = SearchEngine.classic(SearchLimits.depth(9));
+
+        // from the empty board and after each first move, on both sides; every one is a draw
+        for (int first = -1; first < Board.CELLS; first++) {
+            for (Player mctsSide : new Player[]{Player.X, Player.O}) {
+                mcts.newGame();
+                classic.newGame();
+                Board board = new Board();
+                Player toMove = Player.X;
+                if (first >= 0) {
+                    board.makeMove(first, Player.X);
+                    toMove = Player.O;
+                }
+                Player winner = play(board, toMove, mcts, classic, mctsSide);
+                assertNotEquals(mctsSide.opposite(), winner, "mcts as " + mctsSide + " after first move " + first);
+            }
+        }
+    }
+
+    @Test
+    void takesAWinAndBlocksALoss() {
+        // X on 0 and 1, O on 3 and 4: X wins at 2
+        Board win = new Board();
+        int[] cells = {0, 3, 1, 4};
+        for (int i = 0; i < cells.length; i++) win.makeMove(cells[i], i % 2 == 0 ? Player.X : Player.O);
+        assertEquals(2, cell(new MctsEngine(SearchLimits.nodes(2000)).findBestMove(win, Player.O, Player.X)));
+
+        // X on 0 and 1, O on 4: O must block at 2
+        Board block = new Board();
+        block.makeMove(0, Player.X);
+        block.makeMove(4, Player.O);
+        block.makeMove(1, Player.X);
+        assertEquals(2, cell(new MctsEngine(SearchLimits.nodes(2000)).findBestMove(block, Player.X, Player.O)));
+    }
+
+    @Test
+    void reusesTheTreeBetweenMoves() {
+        MctsEngine mcts = new MctsEngine(SearchLimits.nodes(1000));
+        Board board = new Board();
+        mcts.search(board, Player.O, Player.X);
+        int first = mcts.getTreeSize();
+
+        // the same position again keeps growing the whole tree
+        mcts.search(board, Player.O, Player.X);
+        int grown = mcts.getTreeSize();
+        assertTrue(grown > first * 3 / 2, grown + " after a second search, " + first + " after one");
+
+        mcts.newGame();
+        mcts.search(board, Player.O, Player.X);
+        assertTrue(mcts.getTreeSize() < grown * 3 / 4, mcts.getTreeSize() + " after newGame, " + grown + " before");
+
+        // one ply on, the subtree under the played move comes along
+        board.makeMove(4, Player.X);
+        mcts.search(board, Player.X, Player.O);
+        MctsEngine fresh = new MctsEngine(SearchLimits.nodes(1000));
+        fresh.search(board, Player.X, Player.O);
+        assertTrue(mcts.getTreeSize() > fresh.getTreeSize(), mcts.getTreeSize() + " reused, " + fresh.getTreeSize() + " fresh");
+    }
+}
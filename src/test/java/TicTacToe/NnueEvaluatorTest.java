@@ -0,0 +1,47 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class NnueEvaluatorTest {
+
+    private static final int HIDDEN = NnueEvaluator.HIDDEN;
+
+    private static NnueEvaluator uniform(short weight) {
+        short[] w1 = new short[NnueEvaluator.INPUTS * HIDDEN];
+        short[] b1 = new short[HIDDEN];
+        Arrays.fill(w1, weight);
+        Arrays.fill(b1, weight);
+        return new NnueEvaluator(w1, b1, new byte[HIDDEN], 0);
+    }
+
+    @Test
+    void trainerLimitSurvivesRounding() {
+        long largest = Math.round(NnueTrainer.W1_LIMIT * NnueEvaluator.QA);
+        assertTrue(largest * (Board.CELLS + 1) <= Short.MAX_VALUE, "bias plus every cell at the limit: " + largest);
+    }
+
+    @Test
+    void weightsAtTheLimitDoNotWrap() {
+        short limit = (short) Math.round(NnueTrainer.W1_LIMIT * NnueEvaluator.QA);
+        NnueEvaluator net = uniform(limit);
+
+        // eight stones and no line yet, so nothing short-circuits to a final score
+        Board board = new Board();
+        int[] cells = {0, 1, 3, 5, 4, 8, 7, 6};
+        for (int i = 0; i < cells.length; i++) board.makeMove(cells[i], i % 2 == 0 ? Player.X : Player.O);
+        NnueAccumulator acc = net.newAccumulator();
+        acc.reset(board);
+        for (short v : acc.values()) assertEquals(limit * (cells.length + 1), v);
+    }
+
+    @Test
+    void weightsThatCouldOverflowAreRejected() {
+        short past = (short) (Short.MAX_VALUE / (Board.CELLS + 1) + 1);
+        assertThrows(IllegalArgumentException.class, () -> uniform(past));
+    }
+}
@@ -0,0 +1,80 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class PositionAnalyzerTest {
+
+    // far more chunks than may be in flight, so a lost permit would stall the reader
+    private static String positions(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append(".........").append(i % 2 == 0 ? " X" : " O").append('\n');
+        return sb.toString();
+    }
+
+    private static final BoardEvaluator OVERFLOWING = (board, human) -> {
+        throw new StackOverflowError("evaluator overflowed");
+    };
+
+    @Test
+    void evaluatorErrorEndsTheRunInsteadOfHanging() {
+        PositionAnalyzer analyzer = new PositionAnalyzer(OVERFLOWING, SearchLimits.depth(1));
+        StackOverflowError e = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(StackOverflowError.class,
+                () -> analyzer.run(new StringReader(positions(100_000)), new StringWriter(), 2)));
+        assertEquals("evaluator overflowed", e.getMessage());
+    }
+
+    @Test
+    void evaluatorErrorOnAShortFileIsNotATruncatedResult() {
+        PositionAnalyzer analyzer = new PositionAnalyzer(OVERFLOWING, SearchLimits.depth(1));
+        assertThrows(StackOverflowError.class, () -> analyzer.run(new StringReader(positions(10)), new StringWriter(), 2));
+    }
+
+    @Test
+    void writerFailureIsRethrown() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                throw new IllegalStateException("disk gone");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PositionAnalyzer analyzer = new PositionAnalyzer(EvaluationTable.classic(), SearchLimits.depth(1));
+        IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(IllegalStateException.class,
+                () -> analyzer.run(new StringReader(positions(100_000)), failing, 2)));
+        assertEquals("disk gone", e.getMessage());
+    }
+
+    @Test
+    void everyLineIsAnsweredInOrder() throws Exception {
+        PositionAnalyzer analyzer = new PositionAnalyzer(EvaluationTable.classic(), SearchLimits.depth(9));
+        StringWriter out = new StringWriter();
+        String in = positions(5000) + "# comment\nXXXOO.... O\nbad\n";
+        assertEquals(5003, analyzer.run(new StringReader(in), out, 3));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(5003, lines.length);
+        // node counts depend on what the chunk searched before, the move and score do not
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(lines[i % 2].substring(0, lines[i % 2].lastIndexOf(' ')),
+                    lines[i].substring(0, lines[i].lastIndexOf(' ')), "line " + i);
+        }
+        assertEquals("# comment", lines[5000]);
+        assertEquals(true, lines[5001].startsWith("XXXOO.... O - "), lines[5001]);
+        assertEquals(true, lines[5002].startsWith("bad ERR"), lines[5002]);
+    }
+}
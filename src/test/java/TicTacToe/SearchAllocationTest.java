@@ -0,0 +1,43 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+class SearchAllocationTest {
+
+    // the result's longer principal variation is all a deeper search may add
+    private static final long SLACK_BYTES = 512;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // fewest bytes the calling thread allocated over a few cold-table searches
+    private static long allocated(SearchEngine engine, int depth) {
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            Board board = new Board();
+            engine.newGame();
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            engine.search(board, Player.O, Player.X, depth);
+            least = Math.min(least, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return least;
+    }
+
+    @Test
+    void fullDepthSearchAllocatesNothingPerNode() {
+        SearchEngine engine = SearchEngine.classic(SearchLimits.depth(9));
+        for (int i = 0; i < 200; i++) {
+            engine.newGame();
+            engine.search(new Board(), Player.O, Player.X, 9);
+            engine.search(new Board(), Player.O, Player.X, 1);
+        }
+
+        long shallow = allocated(engine, 1);
+        long deep = allocated(engine, 9);
+        assertTrue(deep <= shallow + SLACK_BYTES,
+                "depth 9 allocated " + deep + " bytes, depth 1 allocated " + shallow);
+    }
+}
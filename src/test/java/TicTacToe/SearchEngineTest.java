@@ -0,0 +1,100 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class SearchEngineTest {
+
+    // Easy, Medium and Hard in GameController
+    private static final int[] DIFFICULTY_DEPTHS = {2, 4, 9};
+
+    private static final List<Board> POSITIONS = TestPositions.openings(100, 4, 11);
+
+    private static SearchEngine engine(int depth, boolean ordering, boolean pvs) {
+        SearchOptions options = new SearchOptions(ordering, pvs, false, false, SearchOptions.DEFAULT_TABLE_BITS);
+        return new SearchEngine(EvaluationTable.classic(), SearchLimits.depth(depth), options, null);
+    }
+
+    // nodes summed over every position, each searched with a cleared table;
+    // also checks that every root score matches the reference engine's
+    private static long nodes(SearchEngine engine, SearchEngine reference) {
+        long nodes = 0;
+        for (Board board : POSITIONS) {
+            Player ai = TestPositions.toMove(board);
+            engine.newGame();
+            reference.newGame();
+            SearchResult result = engine.search(board, ai.opposite(), ai);
+            SearchResult expected = reference.search(board, ai.opposite(), ai);
+            assertArrayEquals(TestPositions.rootScores(expected), TestPositions.rootScores(result));
+            nodes += result.getNodes();
+        }
+        return nodes;
+    }
+
+    @Test
+    void orderingSearchesFewerNodesAtEveryDifficulty() {
+        for (int depth : DIFFICULTY_DEPTHS) {
+            SearchEngine unordered = engine(depth, false, false);
+            long before = nodes(unordered, unordered);
+            long after = nodes(engine(depth, true, false), unordered);
+            assertTrue(after <= before, "depth " + depth + ": " + after + " nodes ordered, " + before + " unordered");
+            if (depth > 2) assertTrue(after < before * 3 / 4, "depth " + depth + ": " + after + " of " + before);
+        }
+    }
+
+    @Test
+    void pvsKeepsEveryRootScore() {
+        for (int depth : DIFFICULTY_DEPTHS) {
+            SearchEngine plain = engine(depth, true, false);
+            assertTrue(nodes(engine(depth, true, true), plain) > 0);
+        }
+    }
+
+    @Test
+    void parallelSearchPicksTheSequentialMoveAndScore() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int depth = 1; depth <= 9; depth++) {
+                SearchEngine sequential = engine(depth, true, false);
+                SearchEngine parallel = engine(depth, true, false);
+                for (int i = 0; i < POSITIONS.size(); i++) {
+                    Board board = POSITIONS.get(i);
+                    Player ai = TestPositions.toMove(board);
+                    // root moves only, then young-brothers-wait splits from 2 to 6 plies left
+                    int split = i % 6 == 0 ? Integer.MAX_VALUE : 1 + i % 6;
+                    sequential.newGame();
+                    parallel.newGame();
+                    SearchResult expected = sequential.search(board, ai.opposite(), ai);
+                    SearchResult result = parallel.searchParallel(board, ai.opposite(), ai, depth, pool, split);
+
+                    String where = "position " + i + ", depth " + depth + ", split " + split;
+                    assertEquals(expected.getBestMove().getRow(), result.getBestMove().getRow(), where);
+                    assertEquals(expected.getBestMove().getCol(), result.getBestMove().getCol(), where);
+                    assertEquals(expected.getBestScore(), result.getBestScore(), where);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void statisticsCountTableProbes() {
+        SearchOptions options = new SearchOptions(true, false, false, true, SearchOptions.DEFAULT_TABLE_BITS);
+        SearchEngine engine = new SearchEngine(EvaluationTable.classic(), SearchLimits.depth(9), options, null);
+
+        SearchStats cold = engine.search(new Board(), Player.O, Player.X).getStats();
+        assertTrue(cold.getTableHits() > 0 && cold.getTableMisses() > 0 && cold.getTableStores() > 0, cold.toString());
+
+        // the second search finds every child of the root already solved
+        SearchStats warm = engine.search(new Board(), Player.O, Player.X).getStats();
+        assertEquals(Board.CELLS, warm.getTableHits());
+        assertEquals(0, warm.getTableMisses());
+        assertEquals(1.0, warm.getTableHitRate());
+    }
+}
@@ -0,0 +1,56 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SearchServiceTest {
+
+    private static Throwable failureOf(BoardEvaluator evaluator) throws Exception {
+        SearchService service = new SearchService(Runnable::run);
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        try {
+            service.start(new SearchEngine(evaluator, SearchLimits.depth(4)), new Board(), Player.O, Player.X,
+                    null, result::complete, error::complete);
+            Throwable e = error.get(30, TimeUnit.SECONDS);
+            assertNull(result.getNow(null));
+            return e;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void searchFailureReachesTheCaller() throws Exception {
+        Throwable e = failureOf((board, human) -> {
+            throw new IllegalStateException("evaluator failed");
+        });
+        assertEquals("evaluator failed", e.getMessage());
+    }
+
+    @Test
+    void errorsAreDeliveredToo() throws Exception {
+        Throwable e = failureOf((board, human) -> {
+            throw new AssertionError("out of luck");
+        });
+        assertEquals(AssertionError.class, e.getClass());
+    }
+
+    @Test
+    void resultIsDeliveredWhenNothingFails() throws Exception {
+        SearchService service = new SearchService(Runnable::run);
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        try {
+            service.start(new SearchEngine(EvaluationTable.classic(), SearchLimits.depth(4)), new Board(),
+                    Player.O, Player.X, null, result::complete, e -> result.completeExceptionally(e));
+            assertNotNull(result.get(30, TimeUnit.SECONDS).getBestMove());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
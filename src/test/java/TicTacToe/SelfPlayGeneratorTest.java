@@ -0,0 +1,69 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class SelfPlayGeneratorTest {
+
+    // a sink that fails on its first row
+    private static final class FailingSink implements DatasetSink {
+        @Override
+        public void append(int[] features, int label) {
+            throw new IllegalArgumentException("value out of range");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // counts rows and throws nothing
+    private static final class CountingSink implements DatasetSink {
+        long rows;
+
+        @Override
+        public void append(int[] features, int label) {
+            rows++;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void sinkFailureEndsTheRunInsteadOfHanging() {
+        SelfPlayGenerator gen = new SelfPlayGenerator(SelfPlayGenerator.random(), SelfPlayGenerator.random(),
+                0, SelfPlayGenerator.Label.RESULT, 1);
+        // far more rows than the queue holds, so workers would block on a dead writer
+        IllegalArgumentException e = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IllegalArgumentException.class, () -> gen.run(200_000, 4, new FailingSink())));
+        assertEquals("value out of range", e.getMessage());
+    }
+
+    @Test
+    void engineFailureIsRethrown() {
+        SelfPlayGenerator.Engine broken = (board, toMove, rnd) -> {
+            throw new IllegalStateException("engine failed");
+        };
+        SelfPlayGenerator gen = new SelfPlayGenerator(SelfPlayGenerator.random(), broken, 0, SelfPlayGenerator.Label.RESULT, 1);
+        IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IllegalStateException.class, () -> gen.run(1000, 4, new CountingSink())));
+        assertEquals("engine failed", e.getMessage());
+    }
+
+    @Test
+    void writesEveryPositionWhenNothingFails() throws Exception {
+        SelfPlayGenerator gen = new SelfPlayGenerator(SelfPlayGenerator.random(), SelfPlayGenerator.random(),
+                0, SelfPlayGenerator.Label.RESULT, 1);
+        CountingSink sink = new CountingSink();
+        long written = gen.run(500, 3, sink);
+        assertEquals(written, sink.rows);
+        // every game has between 5 and 9 moves
+        assertEquals(true, written >= 5 * 500 && written <= 9 * 500);
+    }
+}
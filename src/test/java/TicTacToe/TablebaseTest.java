@@ -0,0 +1,81 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TablebaseTest {
+
+    private static final Tablebase TB = Tablebase.solve();
+
+    // positions reachable from the empty board where the game is still on
+    private static final int UNFINISHED_POSITIONS = 4520;
+
+    private static SearchEngine engine(Tablebase tablebase) {
+
+        return new SearchEngine(EvaluationTable.classic(), SearchLimits.depth(Board.CELLS), SearchOptions.defaults(), tablebase);
+    }
+
+    // the mover's value from a full-depth score, which is from the waiting player's view
+    private static int valueOf(int score) {
+
+        return score < 0 ? Tablebase.WIN : score > 0 ? Tablebase.LOSS : Tablebase.DRAW;
+    }
+
+    @Test
+    void everyUnfinishedPositionMatchesAFullDepthSearch() {
+        SearchEngine search = engine(null);
+        SearchEngine lookup = engine(TB);
+        int positions = 0;
+
+        for (int x = 0; x <= Board.FULL_MASK; x++) {
+            for (int o = 0; o <= Board.FULL_MASK; o++) {
+                if ((x & o) != 0) continue;
+                Board board = Board.fromMasks(x, o);
+                Player toMove = TestPositions.toMove(board);
+                int entry = TB.probe(board, toMove);
+                if (entry == 0 || board.isTerminal()) continue;
+                positions++;
+
+                search.newGame();
+                SearchResult full = search.search(board, toMove.opposite(), toMove);
+                String where = "x=" + x + " o=" + o;
+                assertEquals(valueOf(full.getBestScore()), Tablebase.valueOf(entry), where);
+
+                // every move the tablebase calls optimal is one the search scores best
+                int[] scores = TestPositions.rootScores(full);
+                int optimal = Tablebase.optimalMovesOf(entry);
+                assertNotEquals(0, optimal, where);
+                for (int m = optimal; m != 0; m &= m - 1) {
+                    assertEquals(full.getBestScore(), scores[Integer.numberOfTrailingZeros(m)], where);
+                }
+
+                SearchResult answered = lookup.search(board, toMove.opposite(), toMove);
+                Move best = answered.getBestMove();
+                assertNotEquals(0, optimal & Board.bit(best.getRow(), best.getCol()), where);
+                assertEquals(full.getBestScore(), answered.getBestScore(), where);
+            }
+        }
+        assertEquals(UNFINISHED_POSITIONS, positions);
+    }
+
+    @Test
+    void mappedFileHoldsTheSolvedEntries(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tictactoe.tb");
+        TB.write(file);
+        Tablebase mapped = Tablebase.map(file);
+
+        for (int x = 0; x <= Board.FULL_MASK; x++) {
+            for (int o = 0; o <= Board.FULL_MASK; o++) {
+                if ((x & o) != 0) continue;
+                Board board = Board.fromMasks(x, o);
+                Player toMove = TestPositions.toMove(board);
+                assertEquals(TB.probe(board, toMove), mapped.probe(board, toMove), "x=" + x + " o=" + o);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package TicTacToe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// The empty board plus unfinished random openings, the same for every run.
+final class TestPositions {
+
+    private TestPositions() {
+    }
+
+    static List<Board> openings(int count, int maxPlies, long seed) {
+        List<Board> boards = new ArrayList<>();
+        boards.add(new Board());
+        Random rnd = new Random(seed);
+        int[] moves = new int[Board.CELLS];
+        while (boards.size() < count) {
+            Board board = new Board();
+            int plies = rnd.nextInt(maxPlies + 1);
+            for (int i = 0; i < plies && !board.isTerminal(); i++) {
+                board.makeMove(moves[rnd.nextInt(board.generateMoves(moves))], toMove(board));
+            }
+            if (!board.isTerminal()) boards.add(board);
+        }
+        return boards;
+    }
+
+    // X moves first
+    static Player toMove(Board board) {
+
+        return Integer.bitCount(board.getXMask()) == Integer.bitCount(board.getOMask()) ? Player.X : Player.O;
+    }
+
+    // root score per cell, Integer.MIN_VALUE where there was no move
+    static int[] rootScores(SearchResult result) {
+        int[] scores = new int[Board.CELLS];
+        Arrays.fill(scores, Integer.MIN_VALUE);
+        for (Move move : result.getRootMoves()) scores[move.getRow() * Board.SIZE + move.getCol()] = move.getScore();
+        return scores;
+    }
+}
@@ -0,0 +1,45 @@
+package TicTacToe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TournamentTest {
+
+    private static Tournament.Entrant classic(int depth) {
+
+        return new Tournament.Entrant("classic:" + depth, EvaluationTable.classic(), SearchLimits.depth(depth));
+    }
+
+    // an entrant whose engine fails on its first search
+    private static Tournament.Entrant broken() {
+        return new Tournament.Entrant("broken", () -> new MoveSearcher() {
+            @Override
+            public SearchResult search(Board board, Player humanPlayer, Player aiPlayer) {
+                throw new IllegalStateException("engine failed");
+            }
+
+            @Override
+            public void newGame() {
+            }
+        });
+    }
+
+    @Test
+    void workerFailureIsRethrown() {
+        Tournament t = new Tournament(List.of(classic(2), broken()), 0, 1);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> t.run(100, 4));
+        assertEquals("engine failed", e.getMessage());
+    }
+
+    @Test
+    void everyGameIsCounted() throws InterruptedException {
+        Tournament t = new Tournament(List.of(classic(1), classic(2), classic(9)), 2, 1);
+        List<Tournament.Result> results = t.run(51, 3);
+        assertEquals(3, results.size());
+        // rounded up to an even number so both sides play X equally often
+        for (Tournament.Result r : results) assertEquals(52, r.getGames());
+    }
+}